@@ -0,0 +1,101 @@
+package app;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// Serialize + compress benchmark for a large /api/logs-shaped payload, timing the steps a
+// response actually goes through. The baseline is Javalin's defaults: a plain ObjectMapper
+// String re-encoded to UTF-8 (what ctx.json does), gzipped (Javalin compressed responses
+// over 1500 bytes before Compression took over). It is compared with ctx.json and
+// ctx.jsonStream on the shared Json mapper, each followed by what Compression.apply does
+// with the result stream (read it fully, then gzip/deflate), reporting time per response
+// and bytes on the wire.
+//
+// Options (key=value args, or -Pkey=value through ./gradlew jsonBench):
+//   rows        log rows in the payload     (default 5000)
+//   iterations  measured iterations/variant (default 300)
+public class JsonBench {
+    interface Variant {
+        byte[] run(Object payload) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = new HashMap<>();
+        for (String arg : args) {
+            String[] kv = arg.split("=", 2);
+            if (kv.length == 2) opts.put(kv[0], kv[1]);
+        }
+        int rows = Integer.parseInt(opts.getOrDefault("rows", "5000"));
+        int iterations = Integer.parseInt(opts.getOrDefault("iterations", "300"));
+
+        List<Map<String, Object>> payload = logs(rows);
+        ObjectMapper plain = new ObjectMapper();
+
+        Json json = new Json();
+        Map<String, Variant> variants = new java.util.LinkedHashMap<>();
+        variants.put("plain ObjectMapper", p -> plain.writeValueAsString(p).getBytes(StandardCharsets.UTF_8));
+        variants.put("plain + gzip (Javalin default)",
+                p -> Compression.compress(plain.writeValueAsString(p).getBytes(StandardCharsets.UTF_8), "gzip"));
+        variants.put("ctx.json", p -> afterHandler(stringResult(json, p), null));
+        variants.put("ctx.json + gzip", p -> afterHandler(stringResult(json, p), "gzip"));
+        variants.put("ctx.jsonStream", p -> afterHandler(json.toJsonStream(p, p.getClass()), null));
+        variants.put("ctx.jsonStream + gzip", p -> afterHandler(json.toJsonStream(p, p.getClass()), "gzip"));
+        variants.put("ctx.jsonStream + deflate", p -> afterHandler(json.toJsonStream(p, p.getClass()), "deflate"));
+
+        System.out.println("Payload: " + rows + " /api/logs rows, " + iterations + " iterations per variant");
+        System.out.printf("%-31s %12s %12s%n", "variant", "us/response", "bytes");
+        for (Map.Entry<String, Variant> v : variants.entrySet()) {
+            byte[] out = null;
+            // Warm-up so the JIT and Blackbird's generated accessors are in place
+            for (int i = 0; i < Math.max(50, iterations / 2); i++) out = v.getValue().run(payload);
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) out = v.getValue().run(payload);
+            double micros = (System.nanoTime() - start) / 1_000.0 / iterations;
+            System.out.printf("%-31s %12.1f %12d%n", v.getKey(), micros, out.length);
+        }
+    }
+
+    // What ctx.json(obj) leaves as the result: toJsonString, then result(String) encodes it
+    private static InputStream stringResult(Json json, Object payload) {
+        return new ByteArrayInputStream(json.toJsonString(payload, payload.getClass()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Compression.apply's work on the result stream (null encoding: client sent no Accept-Encoding)
+    private static byte[] afterHandler(InputStream result, String encoding) throws IOException {
+        byte[] body = result.readAllBytes();
+        if (encoding == null || body.length < Compression.MIN_SIZE) return body;
+        return Compression.compress(body, encoding);
+    }
+
+    // Same shape as LogDao.getLogs
+    private static List<Map<String, Object>> logs(int rows) {
+        Random rnd = new Random(42);
+        String[] types = {"Running", "Walking", "Swimming", "Push Day", "Pull Day", "Upper Body", "Other"};
+        List<Map<String, Object>> logs = new ArrayList<>(rows);
+        LocalDate day = LocalDate.of(2025, 1, 1);
+        for (int i = 0; i < rows; i++) {
+            Map<String, Object> log = new HashMap<>();
+            log.put("id", (long) i + 1);
+            log.put("date", day.plusDays(i / 3).toString());
+            log.put("steps", rnd.nextInt(15000));
+            log.put("calories", rnd.nextInt(900));
+            log.put("protein", rnd.nextInt(600) / 10.0);
+            log.put("carbohydrates", rnd.nextInt(1200) / 10.0);
+            log.put("fats", rnd.nextInt(400) / 10.0);
+            log.put("workout_type", types[rnd.nextInt(types.length)]);
+            log.put("notes", "Felt good, " + rnd.nextInt(100) + " min");
+            logs.add(log);
+        }
+        return logs;
+    }
+}
@@ -0,0 +1,316 @@
+package app;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Closed-loop load generator: every simulated user signs up, logs in and then loops over
+// a weighted mix of API calls until the run ends. One virtual thread per user.
+//
+// Options (key=value args, or -Pkey=value through ./gradlew loadTest):
+//   baseUrl    server to hit                          (default http://localhost:7070)
+//   users      simulated users                        (default 20)
+//   duration   run length in seconds                  (default 30)
+//   rate       requests/second per user, 0 = no pause (default 0)
+//   mix        action weights, e.g. log:3,progress:3  (default below)
+//   corrected  measure latency from the intended send time (coordinated-omission
+//              correction); needs rate > 0           (default false)
+//   out        report file                           (default build/loadtest/report-<time>.json)
+public class LoadTest {
+    private static final String DEFAULT_MIX = "log:3,workout:2,goals:1,progress:3,logs:2,workoutLogs:1";
+    private static final String PASSWORD = "load-test-password";
+
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private static final Map<String, RouteStats> STATS = new ConcurrentHashMap<>();
+
+    record Config(String baseUrl, int users, int durationSeconds, double ratePerUser,
+                  boolean corrected, LinkedHashMap<String, Integer> mix, Path out) {
+
+        static Config parse(String[] args) {
+            Map<String, String> opts = new HashMap<>();
+            for (String arg : args) {
+                int eq = arg.indexOf('=');
+                if (eq <= 0) throw new IllegalArgumentException("Expected key=value, got: " + arg);
+                opts.put(arg.substring(0, eq), arg.substring(eq + 1));
+            }
+
+            LinkedHashMap<String, Integer> mix = new LinkedHashMap<>();
+            for (String part : opts.getOrDefault("mix", DEFAULT_MIX).split(",")) {
+                String[] kv = part.split(":");
+                if (kv.length != 2 || !ACTIONS.contains(kv[0].trim())) {
+                    throw new IllegalArgumentException("Bad mix entry '" + part + "', actions are " + ACTIONS);
+                }
+                mix.put(kv[0].trim(), Integer.parseInt(kv[1].trim()));
+            }
+
+            Config cfg = new Config(
+                    opts.getOrDefault("baseUrl", "http://localhost:7070"),
+                    Integer.parseInt(opts.getOrDefault("users", "20")),
+                    Integer.parseInt(opts.getOrDefault("duration", "30")),
+                    Double.parseDouble(opts.getOrDefault("rate", "0")),
+                    Boolean.parseBoolean(opts.getOrDefault("corrected", "false")),
+                    mix,
+                    Path.of(opts.getOrDefault("out", "build/loadtest/report-" + System.currentTimeMillis() + ".json")));
+            if (cfg.corrected() && cfg.ratePerUser() <= 0) {
+                throw new IllegalArgumentException("corrected=true needs a fixed rate (rate > 0)");
+            }
+            return cfg;
+        }
+    }
+
+    private static final List<String> ACTIONS = List.of("log", "workout", "goals", "progress", "logs", "workoutLogs");
+
+    public static void main(String[] args) throws Exception {
+        Config cfg = Config.parse(args);
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        System.out.println("Load test " + runId + ": " + cfg.users() + " users for " + cfg.durationSeconds()
+                + "s against " + cfg.baseUrl() + (cfg.ratePerUser() > 0 ? " at " + cfg.ratePerUser() + " req/s/user" : "")
+                + (cfg.corrected() ? " (CO-corrected)" : ""));
+
+        Instant startedAt = Instant.now();
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(cfg.durationSeconds());
+        try (ExecutorService users = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < cfg.users(); i++) {
+                int idx = i;
+                users.submit(() -> new User(cfg, "load-" + runId + "-" + idx).run(deadline));
+            }
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        Map<String, Object> report = report(cfg, runId, startedAt, elapsed);
+        Files.createDirectories(cfg.out().toAbsolutePath().getParent());
+        MAPPER.writeValue(cfg.out().toFile(), report);
+        printSummary(report);
+        System.out.println("Report written to " + cfg.out());
+    }
+
+    //  Simulated user
+
+    static class User {
+        private final Config cfg;
+        private final String username;
+        private String cookie;
+
+        User(Config cfg, String username) {
+            this.cfg = cfg;
+            this.username = username;
+        }
+
+        void run(long deadline) {
+            String creds = "{\"username\":\"" + username + "\",\"password\":\"" + PASSWORD + "\"}";
+            send("POST /api/signup", post("/api/signup", creds), System.nanoTime());
+            HttpResponse<String> login = send("POST /api/login", post("/api/login", creds), System.nanoTime());
+            if (login == null || login.statusCode() != 200) return;
+            cookie = String.join("; ", login.headers().allValues("Set-Cookie").stream()
+                    .map(c -> c.split(";", 2)[0]).toList());
+
+            long interval = cfg.ratePerUser() > 0 ? (long) (1e9 / cfg.ratePerUser()) : 0;
+            long next = System.nanoTime();
+            while (next < deadline) {
+                if (interval > 0) {
+                    long wait = next - System.nanoTime();
+                    if (wait > 0) sleepNanos(wait);
+                    if (System.nanoTime() >= deadline) break;
+                }
+                long intended = next;
+                long sent = System.nanoTime();
+                act(pickAction(), cfg.corrected() ? intended : sent);
+
+                if (interval == 0) {
+                    next = System.nanoTime();
+                } else if (cfg.corrected()) {
+                    // Keep the original schedule: a stall shows up as latency on every request it delayed
+                    next += interval;
+                } else {
+                    // Classic closed loop: the schedule slides with the server, hiding queueing delay
+                    next = Math.max(next + interval, System.nanoTime());
+                }
+            }
+        }
+
+        private void act(String action, long measuredFrom) {
+            ThreadLocalRandom rnd = ThreadLocalRandom.current();
+            String date = LocalDate.now().minusDays(rnd.nextInt(30)).toString();
+            switch (action) {
+                case "log" -> send("POST /api/log", post("/api/log", "{\"date\":\"" + date + "\",\"steps\":" + rnd.nextInt(500, 15000)
+                        + ",\"calories\":" + rnd.nextInt(100, 900) + ",\"protein\":" + rnd.nextInt(5, 60)
+                        + ",\"carbohydrates\":" + rnd.nextInt(10, 120) + ",\"fats\":" + rnd.nextInt(2, 40)
+                        + ",\"workout_type\":\"" + pick(rnd, "Cardio", "Strength", "Yoga", "HIIT") + "\",\"notes\":\"load test\"}"),
+                        measuredFrom);
+                case "workout" -> send("POST /api/workout-log", post("/api/workout-log", "{\"date\":\"" + date
+                        + "\",\"workout_type\":\"" + pick(rnd, "Strength", "Cardio", "Yoga") + "\",\"exercise\":\""
+                        + pick(rnd, "Squat", "Bench Press", "Deadlift", "Running", "Plank") + "\",\"sets\":" + rnd.nextInt(1, 6)
+                        + ",\"reps\":" + rnd.nextInt(5, 20) + ",\"notes\":\"load test\"}"), measuredFrom);
+                case "goals" -> send("POST /api/goals", post("/api/goals", "{\"date\":\"" + date + "\",\"steps_goal\":10000"
+                        + ",\"calories_goal\":2000,\"protein_goal\":120,\"carbs_goal\":250,\"fats_goal\":70}"), measuredFrom);
+                case "progress" -> send("GET /api/progress", get("/api/progress?date=" + date), measuredFrom);
+                case "logs" -> send("GET /api/logs", get("/api/logs"), measuredFrom);
+                case "workoutLogs" -> send("GET /api/workout-logs", get("/api/workout-logs"), measuredFrom);
+                default -> throw new IllegalStateException("Unknown action " + action);
+            }
+        }
+
+        private String pickAction() {
+            int total = cfg.mix().values().stream().mapToInt(Integer::intValue).sum();
+            int r = ThreadLocalRandom.current().nextInt(total);
+            for (Map.Entry<String, Integer> e : cfg.mix().entrySet()) {
+                r -= e.getValue();
+                if (r < 0) return e.getKey();
+            }
+            throw new IllegalStateException("Empty mix");
+        }
+
+        private HttpRequest.Builder get(String path) {
+            return withSession(HttpRequest.newBuilder(URI.create(cfg.baseUrl() + path)).GET());
+        }
+
+        private HttpRequest.Builder post(String path, String json) {
+            return withSession(HttpRequest.newBuilder(URI.create(cfg.baseUrl() + path))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(json)));
+        }
+
+        private HttpRequest.Builder withSession(HttpRequest.Builder b) {
+            if (cookie != null && !cookie.isEmpty()) b.header("Cookie", cookie);
+            return b.timeout(Duration.ofSeconds(30));
+        }
+
+        // Returns null on transport errors; both those and non-2xx responses count as errors
+        private HttpResponse<String> send(String route, HttpRequest.Builder request, long measuredFrom) {
+            HttpResponse<String> resp = null;
+            try {
+                resp = CLIENT.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                // recorded as an error below
+            }
+            long micros = (System.nanoTime() - measuredFrom) / 1_000;
+            boolean ok = resp != null && resp.statusCode() / 100 == 2;
+            STATS.computeIfAbsent(route, r -> new RouteStats()).record(micros, ok);
+            return resp;
+        }
+    }
+
+    private static String pick(ThreadLocalRandom rnd, String... options) {
+        return options[rnd.nextInt(options.length)];
+    }
+
+    private static void sleepNanos(long nanos) {
+        try {
+            Thread.sleep(Duration.ofNanos(nanos));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    //  Statistics and report
+
+    static class RouteStats {
+        private long[] samples = new long[1024];
+        private int count;
+        private long errors;
+
+        synchronized void record(long micros, boolean ok) {
+            if (count == samples.length) samples = Arrays.copyOf(samples, count * 2);
+            samples[count++] = micros;
+            if (!ok) errors++;
+        }
+
+        synchronized Map<String, Object> summary(double elapsedSeconds) {
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("requests", count);
+            m.put("errors", errors);
+            m.put("errorRate", count == 0 ? 0.0 : (double) errors / count);
+            m.put("throughput", count / elapsedSeconds);
+            Map<String, Object> latency = new LinkedHashMap<>();
+            latency.put("p50", percentileMs(sorted, 50));
+            latency.put("p90", percentileMs(sorted, 90));
+            latency.put("p99", percentileMs(sorted, 99));
+            latency.put("p999", percentileMs(sorted, 99.9));
+            latency.put("max", sorted.length == 0 ? 0.0 : sorted[sorted.length - 1] / 1000.0);
+            m.put("latencyMs", latency);
+            return m;
+        }
+    }
+
+    // Nearest-rank percentile in milliseconds
+    private static double percentileMs(long[] sorted, double p) {
+        if (sorted.length == 0) return 0.0;
+        int idx = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(idx, sorted.length - 1))] / 1000.0;
+    }
+
+    private static Map<String, Object> report(Config cfg, String runId, Instant startedAt, double elapsed) {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("baseUrl", cfg.baseUrl());
+        config.put("users", cfg.users());
+        config.put("durationSeconds", cfg.durationSeconds());
+        config.put("ratePerUser", cfg.ratePerUser());
+        config.put("corrected", cfg.corrected());
+        config.put("mix", cfg.mix());
+
+        long requests = 0, errors = 0;
+        Map<String, Object> routes = new TreeMap<>();
+        for (Map.Entry<String, RouteStats> e : STATS.entrySet()) {
+            Map<String, Object> s = e.getValue().summary(elapsed);
+            routes.put(e.getKey(), s);
+            requests += ((Number) s.get("requests")).longValue();
+            errors += ((Number) s.get("errors")).longValue();
+        }
+
+        Map<String, Object> totals = new LinkedHashMap<>();
+        totals.put("requests", requests);
+        totals.put("errors", errors);
+        totals.put("errorRate", requests == 0 ? 0.0 : (double) errors / requests);
+        totals.put("throughput", requests / elapsed);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("runId", runId);
+        report.put("startedAt", startedAt.toString());
+        report.put("elapsedSeconds", elapsed);
+        report.put("config", config);
+        report.put("totals", totals);
+        report.put("routes", routes);
+        return report;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void printSummary(Map<String, Object> report) {
+        System.out.printf("%-24s %8s %7s %9s %9s %9s %9s %9s%n",
+                "route", "reqs", "err%", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms");
+        Map<String, Object> routes = (Map<String, Object>) report.get("routes");
+        for (Map.Entry<String, Object> e : routes.entrySet()) {
+            Map<String, Object> s = (Map<String, Object>) e.getValue();
+            Map<String, Object> l = (Map<String, Object>) s.get("latencyMs");
+            System.out.printf("%-24s %8d %6.2f%% %9.1f %9.2f %9.2f %9.2f %9.2f%n", e.getKey(),
+                    ((Number) s.get("requests")).longValue(), (Double) s.get("errorRate") * 100, (Double) s.get("throughput"),
+                    (Double) l.get("p50"), (Double) l.get("p90"), (Double) l.get("p99"), (Double) l.get("max"));
+        }
+        Map<String, Object> t = (Map<String, Object>) report.get("totals");
+        System.out.printf("%-24s %8d %6.2f%% %9.1f%n", "TOTAL",
+                ((Number) t.get("requests")).longValue(), (Double) t.get("errorRate") * 100, (Double) t.get("throughput"));
+    }
+}
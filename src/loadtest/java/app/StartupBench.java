@@ -0,0 +1,105 @@
+package app;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+// Time to first 200: launches the app as a child process, polls /api/health from outside
+// until it answers 200 and reports the time from launch. Each run gets a fresh working
+// directory (optionally seeded with a copy of a database), so runs don't share DB state.
+// Pass an AppCDS archive to compare a normal start against runCds.
+//
+// Options (key=value args, or -Pkey=value through ./gradlew startupBench):
+//   classpath  application classpath                (set by the Gradle task: jar + deps)
+//   cds        AppCDS archive to map, empty = none    (default none)
+//   runs       measured launches                      (default 5)
+//   db         database file copied into each run dir (default none: fresh DB)
+//   port       port the app listens on                (default 7070)
+public class StartupBench {
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+    private static final Duration TIMEOUT = Duration.ofSeconds(60);
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = new HashMap<>();
+        for (String arg : args) {
+            String[] kv = arg.split("=", 2);
+            if (kv.length == 2) opts.put(kv[0], kv[1]);
+        }
+        String classpath = opts.get("classpath");
+        if (classpath == null || classpath.isBlank()) {
+            throw new IllegalArgumentException("classpath=<application classpath> is required");
+        }
+        String cds = opts.getOrDefault("cds", "");
+        int runs = Integer.parseInt(opts.getOrDefault("runs", "5"));
+        String db = opts.get("db");
+        int port = Integer.parseInt(opts.getOrDefault("port", "7070"));
+        String javaCommand = ProcessHandle.current().info().command().orElse("java");
+
+        Path root = Path.of("build", "startup-bench");
+        List<Long> times = new ArrayList<>();
+        for (int i = 0; i < runs; i++) {
+            Path dir = root.resolve("run-" + i);
+            deleteRecursively(dir);
+            Files.createDirectories(dir);
+            if (db != null) Files.copy(Path.of(db), dir.resolve("fitgirl.db"), StandardCopyOption.REPLACE_EXISTING);
+
+            List<String> command = new ArrayList<>(List.of(javaCommand));
+            if (!cds.isBlank()) command.addAll(List.of("-Xshare:auto", "-XX:SharedArchiveFile=" + Path.of(cds).toAbsolutePath()));
+            command.addAll(List.of("-cp", classpath, "app.Main"));
+
+            long start = System.nanoTime();
+            Process app = new ProcessBuilder(command)
+                    .directory(dir.toFile())
+                    .redirectErrorStream(true)
+                    .redirectOutput(dir.resolve("app.log").toFile())
+                    .start();
+            try {
+                long ms = waitForFirstOk(port, start) / 1_000_000;
+                times.add(ms);
+                System.out.println("run " + (i + 1) + ": first 200 after " + ms + " ms");
+            } finally {
+                app.destroy();
+                if (!app.waitFor(10, TimeUnit.SECONDS)) app.destroyForcibly().waitFor();
+            }
+        }
+
+        Collections.sort(times);
+        System.out.printf("%s: first 200 after min %d ms, median %d ms, max %d ms (%d runs)%n",
+                cds.isBlank() ? "normal start" : "AppCDS", times.get(0), times.get(times.size() / 2),
+                times.get(times.size() - 1), times.size());
+    }
+
+    private static long waitForFirstOk(int port, long start) throws Exception {
+        HttpRequest health = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/health"))
+                .timeout(Duration.ofSeconds(1))
+                .GET().build();
+        while (System.nanoTime() - start < TIMEOUT.toNanos()) {
+            try {
+                if (CLIENT.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return System.nanoTime() - start;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(5);
+        }
+        throw new IllegalStateException("No 200 from /api/health within " + TIMEOUT.toSeconds() + " s");
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) return;
+        try (var paths = Files.walk(dir)) {
+            for (Path p : paths.sorted(Comparator.reverseOrder()).toList()) Files.delete(p);
+        }
+    }
+}
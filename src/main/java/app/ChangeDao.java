@@ -0,0 +1,37 @@
+package app;
+
+import java.sql.*;
+
+// Per-user change sequence for delta sync (GET /api/changes?since=<seq>).
+// Writers call nextSeq inside their own transaction and stamp the row's change_seq with
+// it, so the row and the sequence bump commit (or roll back) together.
+public class ChangeDao {
+
+    // Bump and return the user's sequence; as the transaction's first write it also takes
+    // the write lock up front, so concurrent writers serialize instead of deadlocking
+    public static long nextSeq(Connection c, long userId) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(
+                "INSERT INTO user_change_seq(user_id, seq) VALUES(?, 1) ON CONFLICT(user_id) DO UPDATE SET seq = seq + 1")) {
+            ps.setLong(1, userId);
+            ps.executeUpdate();
+        }
+        try (PreparedStatement ps = c.prepareStatement("SELECT seq FROM user_change_seq WHERE user_id=?")) {
+            ps.setLong(1, userId);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getLong("seq");
+            }
+        }
+    }
+
+    // Latest committed sequence for the user (0 if they never wrote anything)
+    public static long currentSeq(long userId) throws SQLException {
+        try (Connection c = Db.get();
+             PreparedStatement ps = c.prepareStatement("SELECT seq FROM user_change_seq WHERE user_id=?")) {
+            ps.setLong(1, userId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong("seq") : 0;
+            }
+        }
+    }
+}
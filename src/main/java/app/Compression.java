@@ -0,0 +1,73 @@
+package app;
+
+import io.javalin.http.Context;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+// gzip/deflate for responses (API JSON and static files), applied in a global after-handler.
+// Small bodies are sent as-is: below MIN_SIZE the headers and CPU cost more than they save.
+public class Compression {
+    public static final int MIN_SIZE = 1024;
+
+    public static void apply(Context ctx) throws IOException {
+        if (ctx.res().getHeader("Content-Encoding") != null) return;
+        String encoding = negotiate(ctx.header("Accept-Encoding"));
+        if (encoding == null) return;
+
+        InputStream result = ctx.resultInputStream();
+        if (result == null) return;
+        byte[] body = result.readAllBytes();
+        if (body.length < MIN_SIZE) {
+            ctx.result(body); // the stream above was consumed
+            return;
+        }
+
+        ctx.header("Vary", "Accept-Encoding");
+        ctx.header("Content-Encoding", encoding);
+        ctx.result(compress(body, encoding));
+    }
+
+    public static byte[] compress(byte[] body, String encoding) throws IOException {
+        Json.Buffer out = Json.buffer();
+        try (OutputStream z = encoding.equals("gzip") ? new GZIPOutputStream(out, 8192) : new DeflaterOutputStream(out)) {
+            z.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    // gzip preferred over deflate; null when the client accepts neither. An explicit q=0 for
+    // a coding wins over "*", so "gzip;q=0, *" means deflate.
+    static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) return null;
+        Boolean gzip = null, deflate = null, any = null;
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String name = tokens[0].trim().toLowerCase();
+            boolean refused = false;
+            for (int i = 1; i < tokens.length; i++) {
+                String param = tokens[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        refused = Double.parseDouble(param.substring(2)) == 0.0;
+                    } catch (NumberFormatException e) {
+                        refused = true;
+                    }
+                }
+            }
+            switch (name) {
+                case "gzip" -> gzip = !refused;
+                case "deflate" -> deflate = !refused;
+                case "*" -> any = !refused;
+                default -> { }
+            }
+        }
+        boolean anyAccepted = Boolean.TRUE.equals(any);
+        if (gzip != null ? gzip : anyAccepted) return "gzip";
+        if (deflate != null ? deflate : anyAccepted) return "deflate";
+        return null;
+    }
+}
@@ -5,55 +5,83 @@ import java.sql.*;
 public class Db {
     private static final String URL = "jdbc:sqlite:fitgirl.db";
 
+    // Bump whenever the DDL below changes; stored in PRAGMA user_version
+    private static final int SCHEMA_VERSION = 5;
+
     static {
-        // Create tables on first load
+        // Create tables on first load, unless the file already has the current schema
         try (Connection c = get(); Statement st = c.createStatement()) {
+            int version = schemaVersion(st);
+            if (version < SCHEMA_VERSION) {
+                if (version < 1) createSchema(st);
+                if (version < 2) enableWalAndIncrementalVacuum(st);
+                if (version < 3) moveNamesToDictionaries(c);
+                if (version < 4) addChangeSequences(st);
+                if (version < 5) addMaintenanceRuns(st);
+                st.execute("PRAGMA user_version = " + SCHEMA_VERSION);
+                System.out.println("DB schema created/upgraded to version " + SCHEMA_VERSION);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("DB init failed: " + e.getMessage(), e);
+        }
+    }
+
+    // Forces the static initializer (schema check) to run; used to do it off the request path
+    public static void init() {
+    }
 
-            // Users
-            st.execute("""
-                CREATE TABLE IF NOT EXISTS users(
-                  id INTEGER PRIMARY KEY AUTOINCREMENT,
-                  username TEXT UNIQUE NOT NULL,
-                  password_hash TEXT NOT NULL,
-                  email TEXT,
-                  created_at TEXT DEFAULT CURRENT_TIMESTAMP
-                );
-            """);
-
-            // logs
-            st.execute("""
-                CREATE TABLE IF NOT EXISTS daily_logs(
-                  id INTEGER PRIMARY KEY AUTOINCREMENT,
-                  user_id INTEGER NOT NULL,
-                  date TEXT NOT NULL,              -- YYYY-MM-DD
-                  steps INTEGER DEFAULT 0,
-                  calories INTEGER DEFAULT 0,
-                  protein REAL DEFAULT 0,
-                  carbohydrates REAL DEFAULT 0,
-                  fats REAL DEFAULT 0,
-                  workout_type TEXT,
-                  notes TEXT,
-                  FOREIGN KEY(user_id) REFERENCES users(id)
-                );
-            """);
-
-            // goals
-            st.execute("""
-                CREATE TABLE IF NOT EXISTS daily_goals(
-                  id INTEGER PRIMARY KEY AUTOINCREMENT,
-                  user_id INTEGER NOT NULL,
-                  date TEXT NOT NULL,              -- YYYY-MM-DD
-                  steps_goal INTEGER DEFAULT 0,
-                  calories_goal INTEGER DEFAULT 0,
-                  protein_goal REAL DEFAULT 0,
-                  carbs_goal REAL DEFAULT 0,
-                  fats_goal REAL DEFAULT 0,
-                  UNIQUE(user_id, date),
-                  FOREIGN KEY(user_id) REFERENCES users(id)
-                );
-            """);
-            // workout logs
-            st.execute("""
+    private static int schemaVersion(Statement st) throws SQLException {
+        try (ResultSet rs = st.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static void createSchema(Statement st) throws SQLException {
+        // Users
+        st.execute("""
+            CREATE TABLE IF NOT EXISTS users(
+              id INTEGER PRIMARY KEY AUTOINCREMENT,
+              username TEXT UNIQUE NOT NULL,
+              password_hash TEXT NOT NULL,
+              email TEXT,
+              created_at TEXT DEFAULT CURRENT_TIMESTAMP
+            );
+        """);
+
+        // logs
+        st.execute("""
+            CREATE TABLE IF NOT EXISTS daily_logs(
+              id INTEGER PRIMARY KEY AUTOINCREMENT,
+              user_id INTEGER NOT NULL,
+              date TEXT NOT NULL,              -- YYYY-MM-DD
+              steps INTEGER DEFAULT 0,
+              calories INTEGER DEFAULT 0,
+              protein REAL DEFAULT 0,
+              carbohydrates REAL DEFAULT 0,
+              fats REAL DEFAULT 0,
+              workout_type TEXT,
+              notes TEXT,
+              FOREIGN KEY(user_id) REFERENCES users(id)
+            );
+        """);
+
+        // goals
+        st.execute("""
+            CREATE TABLE IF NOT EXISTS daily_goals(
+              id INTEGER PRIMARY KEY AUTOINCREMENT,
+              user_id INTEGER NOT NULL,
+              date TEXT NOT NULL,              -- YYYY-MM-DD
+              steps_goal INTEGER DEFAULT 0,
+              calories_goal INTEGER DEFAULT 0,
+              protein_goal REAL DEFAULT 0,
+              carbs_goal REAL DEFAULT 0,
+              fats_goal REAL DEFAULT 0,
+              UNIQUE(user_id, date),
+              FOREIGN KEY(user_id) REFERENCES users(id)
+            );
+        """);
+        // workout logs
+        st.execute("""
     CREATE TABLE IF NOT EXISTS workout_logs (
       id INTEGER PRIMARY KEY AUTOINCREMENT,
       user_id INTEGER NOT NULL,
@@ -66,11 +94,122 @@ public class Db {
       FOREIGN KEY(user_id) REFERENCES users(id)
     );
 """);
+    }
 
+    // v2: WAL so readers don't block the writer (and checkpoints can run in the background),
+    // and auto_vacuum=INCREMENTAL so Maintenance can hand free pages back to the OS.
+    // Changing auto_vacuum on a file that already has tables only takes effect after a VACUUM.
+    // That VACUUM rewrites the whole file under an exclusive lock, so it runs exactly once per
+    // database (when upgrading past v2) and is logged; on a large file, expect the first start
+    // after the upgrade to block requests that need the DB until it is done.
+    private static void enableWalAndIncrementalVacuum(Statement st) throws SQLException {
+        st.execute("PRAGMA auto_vacuum = INCREMENTAL");
+        System.out.println("DB upgrade: one-off VACUUM to enable incremental auto_vacuum (locks the database until done)");
+        long start = System.nanoTime();
+        st.execute("VACUUM");
+        System.out.println("DB upgrade: VACUUM took " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        // journal_mode returns a row; reading and closing it finishes the statement, which
+        // would otherwise still be running when a later migration commits
+        try (ResultSet rs = st.executeQuery("PRAGMA journal_mode = WAL")) {
+            if (!rs.next() || !"wal".equalsIgnoreCase(rs.getString(1))) {
+                throw new SQLException("Could not switch the database to WAL mode");
+            }
+        }
+    }
 
+    // v3: workout_type / exercise strings move into interned dictionary tables
+    // (see NameDictionary); the log tables keep only integer ids. Runs as one transaction.
+    private static void moveNamesToDictionaries(Connection c) throws SQLException {
+        long start = System.nanoTime();
+        c.setAutoCommit(false);
+        try (Statement st = c.createStatement()) {
+            for (String dict : new String[]{"workout_types", "exercises"}) {
+                st.execute("""
+                    CREATE TABLE IF NOT EXISTS %s(
+                      id INTEGER PRIMARY KEY AUTOINCREMENT,
+                      name TEXT NOT NULL,              -- display spelling
+                      norm TEXT UNIQUE NOT NULL        -- trimmed, lower-cased lookup key
+                    );
+                """.formatted(dict));
+            }
+            st.execute("ALTER TABLE daily_logs ADD COLUMN workout_type_id INTEGER REFERENCES workout_types(id)");
+            st.execute("ALTER TABLE workout_logs ADD COLUMN workout_type_id INTEGER REFERENCES workout_types(id)");
+            st.execute("ALTER TABLE workout_logs ADD COLUMN exercise_id INTEGER REFERENCES exercises(id)");
+
+            internColumn(c, NameDictionary.WORKOUT_TYPES, "daily_logs", "workout_type", "workout_type_id");
+            internColumn(c, NameDictionary.WORKOUT_TYPES, "workout_logs", "workout_type", "workout_type_id");
+            internColumn(c, NameDictionary.EXERCISES, "workout_logs", "exercise", "exercise_id");
+
+            st.execute("ALTER TABLE daily_logs DROP COLUMN workout_type");
+            st.execute("ALTER TABLE workout_logs DROP COLUMN workout_type");
+            st.execute("ALTER TABLE workout_logs DROP COLUMN exercise");
+            st.execute("DROP TABLE IF EXISTS temp.name_map");
+            c.commit();
+            System.out.println("DB upgrade: moving names to dictionaries took " + (System.nanoTime() - start) / 1_000_000 + " ms");
         } catch (SQLException e) {
-            throw new RuntimeException("DB init failed: " + e.getMessage(), e);
+            c.rollback();
+            throw e;
+        } finally {
+            c.setAutoCommit(true);
+        }
+    }
+
+    // Interns each distinct string once into a temp map (raw string -> id, keyed by the raw
+    // string), then fills the id column with a single UPDATE ... FROM joined on that key:
+    // one pass over the table per column instead of one full scan per distinct string.
+    private static void internColumn(Connection c, NameDictionary dict, String table, String column, String idColumn) throws SQLException {
+        try (Statement st = c.createStatement()) {
+            st.execute("CREATE TEMP TABLE IF NOT EXISTS name_map(raw TEXT PRIMARY KEY, id INTEGER NOT NULL)");
+            st.execute("DELETE FROM temp.name_map");
+        }
+        java.util.List<String> values = new java.util.ArrayList<>();
+        try (Statement st = c.createStatement();
+             ResultSet rs = st.executeQuery("SELECT DISTINCT " + column + " FROM " + table + " WHERE " + column + " IS NOT NULL")) {
+            while (rs.next()) values.add(rs.getString(1));
         }
+        try (PreparedStatement ps = c.prepareStatement("INSERT INTO temp.name_map(raw, id) VALUES (?, ?)")) {
+            for (String value : values) {
+                ps.setString(1, value);
+                ps.setInt(2, dict.intern(c, value));
+                ps.executeUpdate();
+            }
+        }
+        try (Statement st = c.createStatement()) {
+            st.executeUpdate("UPDATE " + table + " SET " + idColumn + " = m.id FROM temp.name_map m WHERE m.raw = " + table + "." + column);
+        }
+    }
+
+    // v4: per-user change sequence for delta sync (see ChangeDao). Every write to a synced
+    // table stamps the row with the user's next sequence number. Existing rows get 1, so a
+    // client starting from since=0 receives them all.
+    private static void addChangeSequences(Statement st) throws SQLException {
+        st.execute("""
+            CREATE TABLE IF NOT EXISTS user_change_seq(
+              user_id INTEGER PRIMARY KEY,
+              seq INTEGER NOT NULL,
+              FOREIGN KEY(user_id) REFERENCES users(id)
+            );
+        """);
+        for (String table : new String[]{"daily_logs", "workout_logs", "daily_goals"}) {
+            st.execute("ALTER TABLE " + table + " ADD COLUMN change_seq INTEGER NOT NULL DEFAULT 1");
+            st.execute("CREATE INDEX IF NOT EXISTS idx_" + table + "_user_seq ON " + table + "(user_id, change_seq)");
+        }
+        st.execute("""
+            INSERT OR IGNORE INTO user_change_seq(user_id, seq)
+            SELECT user_id, 1 FROM daily_logs
+            UNION SELECT user_id, 1 FROM workout_logs
+            UNION SELECT user_id, 1 FROM daily_goals
+        """);
+    }
+
+    // v5: when each Maintenance task last ran, so restarts don't push daily tasks out forever
+    private static void addMaintenanceRuns(Statement st) throws SQLException {
+        st.execute("""
+            CREATE TABLE IF NOT EXISTS maintenance_runs(
+              task TEXT PRIMARY KEY,
+              last_run INTEGER NOT NULL        -- epoch seconds
+            );
+        """);
     }
 
     public static Connection get() throws SQLException {
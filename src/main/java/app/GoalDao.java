@@ -1,6 +1,10 @@
 package app;
 
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public class GoalDao {
 
@@ -9,25 +13,60 @@ public class GoalDao {
                               Integer steps, Integer calories,
                               Double protein, Double carbs, Double fats) throws SQLException {
         String sql = """
-            INSERT INTO daily_goals(user_id, date, steps_goal, calories_goal, protein_goal, carbs_goal, fats_goal)
-            VALUES(?,?,?,?,?,?,?)
+            INSERT INTO daily_goals(user_id, date, steps_goal, calories_goal, protein_goal, carbs_goal, fats_goal, change_seq)
+            VALUES(?,?,?,?,?,?,?,?)
             ON CONFLICT(user_id, date) DO UPDATE SET
               steps_goal=excluded.steps_goal,
               calories_goal=excluded.calories_goal,
               protein_goal=excluded.protein_goal,
               carbs_goal=excluded.carbs_goal,
-              fats_goal=excluded.fats_goal
+              fats_goal=excluded.fats_goal,
+              change_seq=excluded.change_seq
         """;
+        try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(sql)) {
+            // Row and change sequence commit together (delta sync)
+            c.setAutoCommit(false);
+            try {
+                ps.setLong(1, userId);
+                ps.setString(2, date);  // Always use the date provided or the current date
+                ps.setObject(3, steps);
+                ps.setObject(4, calories);
+                ps.setObject(5, protein);
+                ps.setObject(6, carbs);
+                ps.setObject(7, fats);
+                ps.setLong(8, ChangeDao.nextSeq(c, userId));
+                ps.executeUpdate();
+                c.commit();
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            }
+        }
+    }
+
+    // Goals inserted or updated after the given change sequence (delta sync)
+    public static List<Map<String, Object>> getChangedSince(long userId, long since) throws SQLException {
+        List<Map<String, Object>> goals = new ArrayList<>();
+        String sql = "SELECT * FROM daily_goals WHERE user_id=? AND change_seq > ? ORDER BY change_seq ASC";
         try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setLong(1, userId);
-            ps.setString(2, date);  // Always use the date provided or the current date
-            ps.setObject(3, steps);
-            ps.setObject(4, calories);
-            ps.setObject(5, protein);
-            ps.setObject(6, carbs);
-            ps.setObject(7, fats);
-            ps.executeUpdate();
+            ps.setLong(2, since);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Map<String, Object> g = new HashMap<>();
+                    g.put("id", rs.getLong("id"));
+                    g.put("date", rs.getString("date"));
+                    g.put("steps_goal", rs.getObject("steps_goal"));
+                    g.put("calories_goal", rs.getObject("calories_goal"));
+                    g.put("protein_goal", rs.getObject("protein_goal"));
+                    g.put("carbs_goal", rs.getObject("carbs_goal"));
+                    g.put("fats_goal", rs.getObject("fats_goal"));
+                    g.put("change_seq", rs.getLong("change_seq"));
+                    goals.add(g);
+                }
+            }
         }
+        return goals;
     }
 
     // Fetch goals
@@ -0,0 +1,115 @@
+package app;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+import java.io.*;
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+// Shared JSON layer used by Javalin (ctx.json / ctx.bodyAsClass) and anything else that
+// needs Jackson. One pre-configured ObjectMapper with Blackbird (generated accessors
+// instead of reflection), ObjectReader/ObjectWriter cached per type, and a per-thread
+// output buffer reused across responses. Only ctx.jsonStream (toJsonStream) and Compression
+// write into that buffer; ctx.json goes through toJsonString and gets a String.
+public class Json implements io.javalin.json.JsonMapper {
+    public static final ObjectMapper MAPPER = com.fasterxml.jackson.databind.json.JsonMapper.builder()
+            .addModule(new BlackbirdModule())
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    private static final ConcurrentHashMap<Type, ObjectWriter> WRITERS = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Type, ObjectReader> READERS = new ConcurrentHashMap<>();
+
+    // Buffers that grew past this are dropped rather than pinned to the thread forever
+    private static final int MAX_POOLED_BUFFER = 1 << 20;
+    private static final ThreadLocal<Buffer> BUFFERS = ThreadLocal.withInitial(Buffer::new);
+
+    public static ObjectWriter writer(Type type) {
+        return WRITERS.computeIfAbsent(type, t -> MAPPER.writerFor(MAPPER.constructType(t)));
+    }
+
+    public static ObjectReader reader(Type type) {
+        return READERS.computeIfAbsent(type, t -> MAPPER.readerFor(MAPPER.constructType(t)));
+    }
+
+    // Reset, thread-confined scratch buffer; callers must copy out before the next call
+    static Buffer buffer() {
+        Buffer b = BUFFERS.get();
+        if (b.capacity() > MAX_POOLED_BUFFER) {
+            b = new Buffer();
+            BUFFERS.set(b);
+        }
+        b.reset();
+        return b;
+    }
+
+    static class Buffer extends ByteArrayOutputStream {
+        Buffer() {
+            super(8192);
+        }
+
+        int capacity() {
+            return buf.length;
+        }
+    }
+
+    //  io.javalin.json.JsonMapper
+
+    @Override
+    public String toJsonString(Object obj, Type type) {
+        try {
+            return writer(type).writeValueAsString(obj);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public InputStream toJsonStream(Object obj, Type type) {
+        try {
+            Buffer out = buffer();
+            writer(type).writeValue(out, obj);
+            return new ByteArrayInputStream(out.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void writeToOutputStream(Stream<?> stream, OutputStream outputStream) {
+        try (JsonGenerator gen = MAPPER.getFactory().createGenerator(outputStream)) {
+            gen.writeStartArray();
+            for (Iterator<?> it = stream.iterator(); it.hasNext(); ) {
+                MAPPER.writeValue(gen, it.next());
+            }
+            gen.writeEndArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public <T> T fromJsonString(String json, Type targetType) {
+        try {
+            return reader(targetType).readValue(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public <T> T fromJsonStream(InputStream json, Type targetType) {
+        try {
+            return reader(targetType).readValue(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
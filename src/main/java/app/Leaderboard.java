@@ -0,0 +1,371 @@
+package app;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.IsoFields;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+import java.util.concurrent.*;
+
+// In-memory cross-user leaderboards, fed by the DAO write paths.
+// One board per metric/period bucket (e.g. "steps:week:2026-W42"); only the current
+// and previous bucket of each period are kept, older ones are dropped on rollover.
+//
+// The database stays the source of truth: on startup the last snapshot is shown while the
+// boards are rebuilt from the retained date range, so writes after the last snapshot (e.g.
+// before a crash) are never lost. The rebuild aggregates rows up to the max ids it read;
+// every write is recorded with its row id and skipped if the rebuild already counted it,
+// whether it arrives during the rebuild (queued, then replayed) or after it.
+public class Leaderboard {
+    public static final List<String> METRICS = List.of("steps", "workouts");
+    public static final List<String> PERIODS = List.of("week", "month");
+
+    private static final Path SNAPSHOT = Path.of("leaderboard.json");
+    private static final long SNAPSHOT_INTERVAL_SECONDS = 60;
+
+    private static volatile ConcurrentHashMap<String, Board> boards = new ConcurrentHashMap<>();
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "leaderboard-snapshot");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // A write seen while the boards are being rebuilt; rowId is the daily_logs/workout_logs id
+    private record Pending(String metric, long userId, long rowId, String date, long delta) {}
+
+    // Guarded by PENDING; once rebuilding is false it never goes back to true
+    private static final List<Pending> PENDING = new ArrayList<>();
+    private static volatile boolean rebuilding = true;
+
+    // Highest daily_logs/workout_logs ids the rebuild aggregated (0 until it has run).
+    // A writer commits before it records, so rows at or below these may still be submitted
+    // after the rebuild and must be skipped.
+    private static volatile long stepsCoveredId;
+    private static volatile long workoutsCoveredId;
+
+    // Show the last snapshot, rebuild from the database and start periodic snapshotting
+    public static void start() {
+        if (Files.exists(SNAPSHOT)) load();
+        rebuildFromDb();
+        rollover();
+        SCHEDULER.scheduleAtFixedRate(() -> {
+            rollover();
+            snapshot();
+        }, SNAPSHOT_INTERVAL_SECONDS, SNAPSHOT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(Leaderboard::snapshot, "leaderboard-final-snapshot"));
+    }
+
+    // Called from LogDao.addLog after commit
+    public static void recordSteps(long userId, long logId, String date, Integer steps) {
+        if (steps == null || steps <= 0) return;
+        submit(new Pending("steps", userId, logId, date, steps));
+    }
+
+    // Called from WorkoutDao.addWorkoutLog after commit
+    public static void recordWorkout(long userId, long workoutLogId, String date) {
+        submit(new Pending("workouts", userId, workoutLogId, date, 1));
+    }
+
+    // Board for the bucket that contains today (never null)
+    public static Board current(String metric, String period) {
+        return boards.computeIfAbsent(bucketKey(metric, period, LocalDate.now()), k -> new Board());
+    }
+
+    public static String currentBucket(String metric, String period) {
+        return bucketKey(metric, period, LocalDate.now());
+    }
+
+    private static void submit(Pending p) {
+        // Without a row id a write can't be told apart from one the rebuild already counted
+        if (p.rowId() <= 0) return;
+        if (rebuilding) {
+            synchronized (PENDING) {
+                if (rebuilding) {
+                    PENDING.add(p);
+                    // Keep the provisional boards live too; they are replaced when the rebuild lands
+                    record(boards, p.metric(), p.userId(), p.date(), p.delta());
+                    return;
+                }
+            }
+        }
+        if (p.rowId() <= coveredId(p.metric())) return;
+        record(boards, p.metric(), p.userId(), p.date(), p.delta());
+    }
+
+    private static long coveredId(String metric) {
+        return metric.equals("steps") ? stepsCoveredId : workoutsCoveredId;
+    }
+
+    private static void record(Map<String, Board> target, String metric, long userId, String date, long delta) {
+        LocalDate day = parseDate(date);
+        if (day == null) return;
+        Set<String> retained = retainedBuckets(LocalDate.now());
+        for (String period : PERIODS) {
+            String key = bucketKey(metric, period, day);
+            // Back-dated entries outside the retained buckets don't affect any leaderboard
+            if (retained.contains(key)) {
+                target.computeIfAbsent(key, k -> new Board()).add(userId, delta);
+            }
+        }
+    }
+
+    static String bucketKey(String metric, String period, LocalDate day) {
+        if (period.equals("week")) {
+            return String.format("%s:week:%d-W%02d", metric,
+                    day.get(IsoFields.WEEK_BASED_YEAR), day.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+        }
+        return String.format("%s:month:%d-%02d", metric, day.getYear(), day.getMonthValue());
+    }
+
+    // Current and previous bucket for every metric/period
+    private static Set<String> retainedBuckets(LocalDate today) {
+        Set<String> keys = new HashSet<>();
+        for (String metric : METRICS) {
+            keys.add(bucketKey(metric, "week", today));
+            keys.add(bucketKey(metric, "week", today.minusWeeks(1)));
+            keys.add(bucketKey(metric, "month", today));
+            keys.add(bucketKey(metric, "month", today.minusMonths(1)));
+        }
+        return keys;
+    }
+
+    private static void rollover() {
+        Set<String> retained = retainedBuckets(LocalDate.now());
+        boards.keySet().removeIf(key -> !retained.contains(key));
+    }
+
+    private static LocalDate parseDate(String date) {
+        if (date == null) return null;
+        try {
+            return LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    //  Snapshotting
+
+    static void snapshot() {
+        Map<String, Map<Long, Long>> data = new HashMap<>();
+        boards.forEach((key, board) -> data.put(key, board.scores()));
+        try {
+            // Write to a temp file and swap it in so a crash never leaves a half-written snapshot
+            Path tmp = SNAPSHOT.resolveSibling(SNAPSHOT.getFileName() + ".tmp");
+            Json.MAPPER.writeValue(tmp.toFile(), data);
+            Files.move(tmp, SNAPSHOT, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("Leaderboard snapshot failed: " + e.getMessage());
+        }
+    }
+
+    // Provisional boards until rebuildFromDb replaces them
+    private static void load() {
+        try {
+            Map<String, Map<Long, Long>> data = Json.MAPPER.readValue(SNAPSHOT.toFile(), new TypeReference<>() {});
+            data.forEach((key, scores) -> {
+                Board board = boards.computeIfAbsent(key, k -> new Board());
+                scores.forEach(board::add);
+            });
+            System.out.println("Leaderboard snapshot loaded: " + data.size() + " buckets");
+        } catch (IOException e) {
+            System.out.println("Leaderboard snapshot unreadable, waiting for database rebuild: " + e.getMessage());
+        }
+    }
+
+    // Aggregate the retained date range up to the current max row ids, then replay the
+    // writes queued meanwhile whose ids are above them, and swap the result in
+    private static void rebuildFromDb() {
+        LocalDate today = LocalDate.now();
+        LocalDate since = today.minusMonths(1).withDayOfMonth(1);
+        LocalDate weekStart = today.minusWeeks(1).with(TemporalAdjusters.previousOrSame(java.time.DayOfWeek.MONDAY));
+        if (weekStart.isBefore(since)) since = weekStart;
+
+        ConcurrentHashMap<String, Board> fresh = new ConcurrentHashMap<>();
+        long maxLogId, maxWorkoutLogId;
+        try {
+            // Read the high-water marks first: anything committed later has a larger id
+            maxLogId = LogDao.maxLogId();
+            maxWorkoutLogId = WorkoutDao.maxWorkoutLogId();
+            for (Map<String, Object> row : LogDao.stepTotalsSince(since.toString(), maxLogId)) {
+                record(fresh, "steps", (Long) row.get("user_id"), (String) row.get("date"), (Integer) row.get("steps"));
+            }
+            for (Map<String, Object> row : WorkoutDao.workoutCountsSince(since.toString(), maxWorkoutLogId)) {
+                record(fresh, "workouts", (Long) row.get("user_id"), (String) row.get("date"), (Integer) row.get("count"));
+            }
+        } catch (SQLException | RuntimeException | LinkageError e) {
+            // Also covers Db failing to initialize: the queue must not grow forever either way
+            System.out.println("Leaderboard rebuild failed, keeping snapshot: " + e);
+            synchronized (PENDING) {
+                PENDING.clear();
+                rebuilding = false;
+            }
+            return;
+        }
+
+        synchronized (PENDING) {
+            // Set before rebuilding flips (both volatile), so any submit that sees the flip sees these
+            stepsCoveredId = maxLogId;
+            workoutsCoveredId = maxWorkoutLogId;
+            int replayed = 0;
+            for (Pending p : PENDING) {
+                if (p.rowId() > coveredId(p.metric())) {
+                    record(fresh, p.metric(), p.userId(), p.date(), p.delta());
+                    replayed++;
+                }
+            }
+            PENDING.clear();
+            boards = fresh;
+            rebuilding = false;
+            System.out.println("Leaderboard rebuilt from database since " + since + " (" + replayed + " queued writes replayed)");
+        }
+    }
+
+    //  Per-bucket ranking
+
+    // Entries ordered by score descending, ties broken by user id
+    public record Entry(long userId, long score) {}
+
+    private static final Comparator<Entry> ORDER =
+            Comparator.comparingLong(Entry::score).reversed().thenComparingLong(Entry::userId);
+
+    // Board of per-user scores plus an order-statistic treap over the same entries, so
+    // add, rank and top-k are all O(log n) (+k). Small per-board lock: updates are one per
+    // write request and reads are a handful of tree steps.
+    public static class Board {
+        private final HashMap<Long, Long> scores = new HashMap<>();
+        private Node root;
+
+        private static final class Node {
+            final Entry entry;
+            final int priority = ThreadLocalRandom.current().nextInt();
+            Node left, right;
+            int size = 1;
+
+            Node(Entry entry) {
+                this.entry = entry;
+            }
+        }
+
+        synchronized void add(long userId, long delta) {
+            Long old = scores.get(userId);
+            long next = (old == null ? 0 : old) + delta;
+            if (old != null) root = remove(root, new Entry(userId, old));
+            root = insert(root, new Node(new Entry(userId, next)));
+            scores.put(userId, next);
+        }
+
+        public synchronized List<Entry> top(int k) {
+            List<Entry> out = new ArrayList<>(Math.min(k, size(root)));
+            Deque<Node> stack = new ArrayDeque<>();
+            Node n = root;
+            while ((n != null || !stack.isEmpty()) && out.size() < k) {
+                while (n != null) {
+                    stack.push(n);
+                    n = n.left;
+                }
+                n = stack.pop();
+                out.add(n.entry);
+                n = n.right;
+            }
+            return out;
+        }
+
+        public synchronized Long score(long userId) {
+            return scores.get(userId);
+        }
+
+        // 1-based rank, or null if the user has no score in this bucket
+        public synchronized Integer rank(long userId) {
+            Long score = scores.get(userId);
+            if (score == null) return null;
+            Entry target = new Entry(userId, score);
+            int before = 0;
+            Node n = root;
+            while (n != null) {
+                int c = ORDER.compare(target, n.entry);
+                if (c == 0) return before + size(n.left) + 1;
+                if (c < 0) {
+                    n = n.left;
+                } else {
+                    before += size(n.left) + 1;
+                    n = n.right;
+                }
+            }
+            return null; // unreachable: every score has a node
+        }
+
+        public synchronized int size() {
+            return scores.size();
+        }
+
+        synchronized Map<Long, Long> scores() {
+            return new HashMap<>(scores);
+        }
+
+        //  Treap operations (ordered by ORDER, heap-ordered by priority)
+
+        private static int size(Node n) {
+            return n == null ? 0 : n.size;
+        }
+
+        private static Node fix(Node n) {
+            n.size = 1 + size(n.left) + size(n.right);
+            return n;
+        }
+
+        private static Node insert(Node n, Node x) {
+            if (n == null) return x;
+            if (ORDER.compare(x.entry, n.entry) < 0) {
+                n.left = insert(n.left, x);
+                if (n.left.priority > n.priority) n = rotateRight(n);
+            } else {
+                n.right = insert(n.right, x);
+                if (n.right.priority > n.priority) n = rotateLeft(n);
+            }
+            return fix(n);
+        }
+
+        private static Node remove(Node n, Entry e) {
+            if (n == null) return null;
+            int c = ORDER.compare(e, n.entry);
+            if (c < 0) {
+                n.left = remove(n.left, e);
+            } else if (c > 0) {
+                n.right = remove(n.right, e);
+            } else {
+                if (n.left == null) return n.right;
+                if (n.right == null) return n.left;
+                // Rotate the higher-priority child up, then keep removing below it
+                if (n.left.priority > n.right.priority) {
+                    n = rotateRight(n);
+                    n.right = remove(n.right, e);
+                } else {
+                    n = rotateLeft(n);
+                    n.left = remove(n.left, e);
+                }
+            }
+            return fix(n);
+        }
+
+        private static Node rotateRight(Node n) {
+            Node l = n.left;
+            n.left = l.right;
+            l.right = fix(n);
+            return fix(l);
+        }
+
+        private static Node rotateLeft(Node n) {
+            Node r = n.right;
+            n.right = r.left;
+            r.left = fix(n);
+            return fix(r);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package app;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -15,30 +16,100 @@ public class LogDao {
         Double protein = asDouble(logData.get("protein"));
         Double carbohydrates = asDouble(logData.get("carbohydrates"));
         Double fats = asDouble(logData.get("fats"));
-        String workoutType = (String) logData.get("workout_type");
+        Integer workoutTypeId = NameDictionary.WORKOUT_TYPES.idFor((String) logData.get("workout_type"));
         String notes = (String) logData.get("notes");
 
+        Long logId;
+        try (Connection c = Db.get()) {
+            // Row and change sequence commit together (delta sync)
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement(
+                         "INSERT INTO daily_logs(user_id, date, steps, calories, protein, carbohydrates, fats, workout_type_id, notes, change_seq) " +
+                                 "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                         Statement.RETURN_GENERATED_KEYS)) {
+
+                long seq = ChangeDao.nextSeq(c, userId);
+                ps.setLong(1, userId);
+                ps.setString(2, date);
+                ps.setObject(3, steps);
+                ps.setObject(4, calories);
+                ps.setObject(5, protein);
+                ps.setObject(6, carbohydrates);
+                ps.setObject(7, fats);
+                ps.setObject(8, workoutTypeId);
+                ps.setString(9, notes);
+                ps.setLong(10, seq);
+
+                ps.executeUpdate();
+                try (ResultSet rs = ps.getGeneratedKeys()) {
+                    logId = rs.next() ? rs.getLong(1) : null;
+                }
+                c.commit();
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            }
+        }
+        Leaderboard.recordSteps(userId, logId == null ? 0 : logId, date, steps);
+        return logId;
+    }
+
+    // Logs inserted or updated after the given change sequence (delta sync)
+    public static List<Map<String, Object>> getLogsChangedSince(long userId, long since) throws SQLException {
+        List<Map<String, Object>> logs = new ArrayList<>();
         try (Connection c = Db.get();
              PreparedStatement ps = c.prepareStatement(
-                     "INSERT INTO daily_logs(user_id, date, steps, calories, protein, carbohydrates, fats, workout_type, notes) " +
-                             "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
-                     Statement.RETURN_GENERATED_KEYS)) {
-
+                     "SELECT * FROM daily_logs WHERE user_id = ? AND change_seq > ? ORDER BY change_seq ASC")) {
             ps.setLong(1, userId);
-            ps.setString(2, date);
-            ps.setObject(3, steps);
-            ps.setObject(4, calories);
-            ps.setObject(5, protein);
-            ps.setObject(6, carbohydrates);
-            ps.setObject(7, fats);
-            ps.setString(8, workoutType);
-            ps.setString(9, notes);
+            ps.setLong(2, since);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Map<String, Object> log = new HashMap<>();
+                    log.put("id", rs.getLong("id"));
+                    log.put("date", rs.getString("date"));
+                    log.put("steps", rs.getInt("steps"));
+                    log.put("calories", rs.getInt("calories"));
+                    log.put("protein", rs.getDouble("protein"));
+                    log.put("carbohydrates", rs.getDouble("carbohydrates"));
+                    log.put("fats", rs.getDouble("fats"));
+                    log.put("workout_type", NameDictionary.WORKOUT_TYPES.name(rs.getInt("workout_type_id")));
+                    log.put("notes", rs.getString("notes"));
+                    log.put("change_seq", rs.getLong("change_seq"));
+                    logs.add(log);
+                }
+            }
+        }
+        return logs;
+    }
+
+    // Highest committed log id (ids only grow, so rows above it are newer than any read of it)
+    public static long maxLogId() throws SQLException {
+        try (Connection c = Db.get();
+             Statement st = c.createStatement();
+             ResultSet rs = st.executeQuery("SELECT COALESCE(MAX(id),0) FROM daily_logs")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
 
-            ps.executeUpdate();
-            try (ResultSet rs = ps.getGeneratedKeys()) {
-                return rs.next() ? rs.getLong(1) : null;
+    // Step totals per user and date since a given date, up to a log id (used to seed the leaderboard)
+    public static List<Map<String, Object>> stepTotalsSince(String since, long maxId) throws SQLException {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        try (Connection c = Db.get();
+             PreparedStatement ps = c.prepareStatement(
+                     "SELECT user_id, date, COALESCE(SUM(steps),0) as steps FROM daily_logs WHERE date >= ? AND id <= ? GROUP BY user_id, date")) {
+            ps.setString(1, since);
+            ps.setLong(2, maxId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(Map.of(
+                            "user_id", rs.getLong("user_id"),
+                            "date", rs.getString("date"),
+                            "steps", rs.getInt("steps")
+                    ));
+                }
             }
         }
+        return rows;
     }
 
     // Get all logs for a user
@@ -50,17 +121,17 @@ public class LogDao {
             ps.setLong(1, userId);
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
-                    logs.add(Map.of(
-                            "id", rs.getLong("id"),
-                            "date", rs.getString("date"),
-                            "steps", rs.getInt("steps"),
-                            "calories", rs.getInt("calories"),
-                            "protein", rs.getDouble("protein"),
-                            "carbohydrates", rs.getDouble("carbohydrates"),
-                            "fats", rs.getDouble("fats"),
-                            "workout_type", rs.getString("workout_type"),
-                            "notes", rs.getString("notes")
-                    ));
+                    Map<String, Object> log = new HashMap<>();
+                    log.put("id", rs.getLong("id"));
+                    log.put("date", rs.getString("date"));
+                    log.put("steps", rs.getInt("steps"));
+                    log.put("calories", rs.getInt("calories"));
+                    log.put("protein", rs.getDouble("protein"));
+                    log.put("carbohydrates", rs.getDouble("carbohydrates"));
+                    log.put("fats", rs.getDouble("fats"));
+                    log.put("workout_type", NameDictionary.WORKOUT_TYPES.name(rs.getInt("workout_type_id")));
+                    log.put("notes", rs.getString("notes"));
+                    logs.add(log);
                 }
             }
         }
@@ -118,17 +189,17 @@ public class LogDao {
             ps.setString(2, date);
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
-                    logs.add(Map.of(
-                            "id", rs.getLong("id"),
-                            "date", rs.getString("date"),
-                            "steps", rs.getInt("steps"),
-                            "calories", rs.getInt("calories"),
-                            "protein", rs.getDouble("protein"),
-                            "carbohydrates", rs.getDouble("carbohydrates"),
-                            "fats", rs.getDouble("fats"),
-                            "workout_type", rs.getString("workout_type"),
-                            "notes", rs.getString("notes")
-                    ));
+                    Map<String, Object> log = new HashMap<>();
+                    log.put("id", rs.getLong("id"));
+                    log.put("date", rs.getString("date"));
+                    log.put("steps", rs.getInt("steps"));
+                    log.put("calories", rs.getInt("calories"));
+                    log.put("protein", rs.getDouble("protein"));
+                    log.put("carbohydrates", rs.getDouble("carbohydrates"));
+                    log.put("fats", rs.getDouble("fats"));
+                    log.put("workout_type", NameDictionary.WORKOUT_TYPES.name(rs.getInt("workout_type_id")));
+                    log.put("notes", rs.getString("notes"));
+                    logs.add(log);
                 }
             }
         }
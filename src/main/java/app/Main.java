@@ -9,11 +9,25 @@ import java.util.List;
 import java.util.Map;
 
 public class Main {
+    private static final int PORT = 7070;
+
     public static void main(String[] args) {
+        Startup.logJvmBoot();
+
+        // Fail fast on bad auth settings instead of on the first authenticated request
+        TokenAuth.init();
+
         Javalin app = Javalin.create(config -> {
             // Enable logging (development mode)
             config.plugins.enableDevLogging();
 
+            // Shared Jackson setup (Blackbird, cached readers/writers); compression is done by
+            // Compression in an after-handler so the threshold and encodings are ours.
+            // List-sized responses use ctx.jsonStream: Jackson writes UTF-8 straight into the
+            // per-thread buffer instead of building a String that ctx.json re-encodes.
+            config.jsonMapper(new Json());
+            config.compression.none();
+
             // Enable CORS (allow all origins for development)
             config.plugins.enableCors(cors -> {
                 cors.add(it -> {
@@ -23,7 +37,8 @@ public class Main {
                 });
             });
 
-        }).start(7070);
+        });
+        Startup.mark("javalin config");
 
         // Serve static files manually
         app.get("/", ctx -> {
@@ -65,12 +80,37 @@ public class Main {
 
         // Enhanced authentication helper
         app.before("/api/*", ctx -> {
+            Maintenance.noteRequest();
+
             // Skip auth for login, signup, and health endpoints
             String path = ctx.path();
             if (path.equals("/api/login") || path.equals("/api/signup") || path.equals("/api/health")) {
                 return;
             }
 
+            // Signed token: verified from the token itself, no session or DB lookup.
+            // A bad Bearer token is an explicit credential and fails the request; a bad cookie
+            // (expired, revoked, rotated key, or left over from token mode) is cleared and the
+            // request falls through to the session check
+            TokenAuth.Claims claims = null;
+            String bearer = TokenAuth.bearer(ctx);
+            if (bearer != null) {
+                claims = TokenAuth.verify(bearer);
+                if (claims == null) {
+                    ctx.status(401).json(Map.of("error", "Unauthorized"));
+                    return;
+                }
+            } else if (TokenAuth.cookie(ctx) != null) {
+                claims = TokenAuth.verify(TokenAuth.cookie(ctx));
+                if (claims == null) TokenAuth.clearCookie(ctx);
+            }
+            if (claims != null) {
+                ctx.attribute("userId", claims.userId());
+                ctx.attribute("username", claims.username());
+                ctx.attribute("tokenClaims", claims);
+                return;
+            }
+
             // Debug: Print session info
             System.out.println("Session ID: " + ctx.req().getSession(false));
             System.out.println("User in session: " + ctx.sessionAttribute("user"));
@@ -101,6 +141,10 @@ public class Main {
             }
         });
 
+        // gzip/deflate every response above Compression.MIN_SIZE (API JSON and the static
+        // index.html/script.js/styles.css alike, since Javalin's own compression is off)
+        app.after(Compression::apply);
+
         // User signup
         app.post("/api/signup", ctx -> {
             try {
@@ -141,6 +185,19 @@ public class Main {
                 }
 
                 if (UserDao.authenticate(username, password)) {
+                    if (TokenAuth.enabled()) {
+                        // Stateless token instead of a server-side session
+                        Long userId = UserDao.getUserIdByUsername(username);
+                        String token = TokenAuth.issue(userId, username.trim());
+                        TokenAuth.setCookie(ctx, token);
+                        System.out.println("User logged in (token): " + username);
+                        ctx.json(Map.of("message", "Login successful", "user", username.trim(),
+                                "token", token, "expiresIn", TokenAuth.ttlSeconds()));
+                        return;
+                    }
+                    // A token cookie from an earlier token-mode login would otherwise shadow the session
+                    if (TokenAuth.cookie(ctx) != null) TokenAuth.clearCookie(ctx);
+
                     // Create session
                     ctx.req().getSession(true); // Force create session
                     ctx.sessionAttribute("user", username.trim());
@@ -162,7 +219,13 @@ public class Main {
             try {
                 String username = ctx.attribute("username");
                 System.out.println("User logging out: " + username);
-                ctx.req().getSession().invalidate();
+                TokenAuth.Claims claims = ctx.attribute("tokenClaims");
+                if (claims != null) {
+                    TokenAuth.revoke(claims);
+                    TokenAuth.clearCookie(ctx);
+                } else {
+                    ctx.req().getSession().invalidate();
+                }
                 ctx.json(Map.of("message", "Logged out"));
             } catch (Exception e) {
                 System.out.println("Logout error: " + e.getMessage());
@@ -203,7 +266,7 @@ public class Main {
 
                 List<Map<String, Object>> logs = LogDao.getLogs(userId);
                 System.out.println("Found " + logs.size() + " logs");
-                ctx.json(logs);
+                ctx.jsonStream(logs);
             } catch (Exception e) {
                 System.out.println("Error fetching logs: " + e.getMessage());
                 e.printStackTrace();
@@ -311,7 +374,7 @@ public class Main {
 
                 List<Map<String, Object>> workoutLogs = WorkoutDao.getWorkoutLogs(userId);
                 System.out.println("Found " + workoutLogs.size() + " workout logs");
-                ctx.json(workoutLogs);
+                ctx.jsonStream(workoutLogs);
             } catch (Exception e) {
                 System.out.println("Error fetching workout logs: " + e.getMessage());
                 e.printStackTrace();
@@ -319,6 +382,116 @@ public class Main {
             }
         });
 
+        // Leaderboards
+
+        // Top users for the current week/month, plus the caller's own rank
+        app.get("/api/leaderboard", ctx -> {
+            try {
+                Long userId = ctx.attribute("userId");
+
+                String metric = ctx.queryParam("metric") == null ? "steps" : ctx.queryParam("metric");
+                String period = ctx.queryParam("period") == null ? "week" : ctx.queryParam("period");
+                if (!Leaderboard.METRICS.contains(metric) || !Leaderboard.PERIODS.contains(period)) {
+                    ctx.status(400).json(Map.of("error", "metric must be one of " + Leaderboard.METRICS
+                            + " and period one of " + Leaderboard.PERIODS));
+                    return;
+                }
+                Integer limit = asInteger(ctx.queryParam("limit"));
+                limit = (limit == null) ? 10 : Math.max(1, Math.min(limit, 100));
+
+                Leaderboard.Board board = Leaderboard.current(metric, period);
+                List<Leaderboard.Entry> top = board.top(limit);
+                Map<Long, String> names = UserDao.getUsernamesByIds(top.stream().map(Leaderboard.Entry::userId).toList());
+
+                List<Map<String, Object>> entries = new java.util.ArrayList<>();
+                for (int i = 0; i < top.size(); i++) {
+                    Leaderboard.Entry e = top.get(i);
+                    entries.add(Map.of(
+                            "rank", i + 1,
+                            "username", names.getOrDefault(e.userId(), "unknown"),
+                            "score", e.score()
+                    ));
+                }
+
+                Map<String, Object> me = new HashMap<>();
+                me.put("rank", board.rank(userId));
+                me.put("score", board.score(userId) == null ? 0L : board.score(userId));
+
+                Map<String, Object> resp = new HashMap<>();
+                resp.put("metric", metric);
+                resp.put("period", period);
+                resp.put("bucket", Leaderboard.currentBucket(metric, period));
+                resp.put("participants", board.size());
+                resp.put("top", entries);
+                resp.put("me", me);
+                ctx.jsonStream(resp);
+            } catch (Exception e) {
+                System.out.println("Leaderboard error: " + e.getMessage());
+                e.printStackTrace();
+                ctx.status(500).json(Map.of("error", "Failed to fetch leaderboard: " + e.getMessage()));
+            }
+        });
+        // Delta sync
+
+        // Rows inserted or updated since the client's last seen change sequence
+        app.get("/api/changes", ctx -> {
+            try {
+                Long userId = ctx.attribute("userId");
+                String username = ctx.attribute("username");
+
+                long since;
+                try {
+                    since = Long.parseLong(ctx.queryParam("since") == null ? "0" : ctx.queryParam("since"));
+                } catch (NumberFormatException e) {
+                    since = -1;
+                }
+                if (since < 0) {
+                    ctx.status(400).json(Map.of("error", "since must be a non-negative sequence number"));
+                    return;
+                }
+
+                // Read the cursor before the rows: a change committed in between is sent now and
+                // again next time (clients upsert by id), but never skipped
+                long seq = ChangeDao.currentSeq(userId);
+
+                // A cursor ahead of the server (e.g. restored database) means the client copy is stale
+                boolean reset = since > seq;
+                if (reset) since = 0;
+
+                Map<String, Object> resp = new HashMap<>();
+                resp.put("user", username);
+                resp.put("since", since);
+                resp.put("seq", seq);
+                resp.put("reset", reset);
+                resp.put("logs", LogDao.getLogsChangedSince(userId, since));
+                resp.put("workoutLogs", WorkoutDao.getWorkoutLogsChangedSince(userId, since));
+                resp.put("goals", GoalDao.getChangedSince(userId, since));
+                ctx.jsonStream(resp);
+            } catch (Exception e) {
+                System.out.println("Error fetching changes: " + e.getMessage());
+                e.printStackTrace();
+                ctx.status(500).json(Map.of("error", "Failed to fetch changes: " + e.getMessage()));
+            }
+        });
+
+        // Database maintenance
+
+        // Last run, duration and effect of each background maintenance task
+        app.get("/api/maintenance/status", ctx -> {
+            // The before-filter only sets the 401; Javalin still runs this handler
+            if (ctx.attribute("userId") == null) return;
+            ctx.json(Map.of("tasks", Maintenance.status()));
+        });
+        Startup.mark("routes");
+
+        // Start only once every route is registered, so the first request can't hit a 404
+        app.start(PORT);
+        Startup.mark("server started");
+
+        Maintenance.start();
+
+        // Schema check, leaderboard rebuild and JIT/class-loading warm-up happen off the critical path
+        Startup.warmUp(PORT, Boolean.getBoolean("fitgirl.cds.training"));
     }
 
     // Helper methods
@@ -350,4 +523,4 @@ public class Main {
         if (bd instanceof String s && !s.isBlank()) return s;
         return LocalDate.now().toString();
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,287 @@
+package app;
+
+import java.sql.*;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Background database maintenance: WAL checkpoints, PRAGMA optimize, ANALYZE,
+// incremental vacuum and a quick integrity check.
+// A single thread wakes up every TICK and runs at most one due task, preferring quiet
+// periods (few API requests since the last tick). A task that has been waiting for
+// OVERDUE_FACTOR intervals runs regardless, so busy servers still get maintained.
+// Every task is bounded so it never holds the write lock for long.
+// Last-run times are kept in maintenance_runs, so a node that restarts more often than a
+// task's interval still runs it; a task that never ran is due FIRST_RUN_DELAY after start.
+public class Maintenance {
+    private static final Duration TICK = Duration.ofSeconds(30);
+    private static final long QUIET_REQUESTS_PER_TICK = 30;
+    private static final int OVERDUE_FACTOR = 3;
+    private static final Duration FIRST_RUN_DELAY = Duration.ofMinutes(5);
+    private static final Instant STARTED = Instant.now();
+
+    private static final int VACUUM_PAGES_PER_BATCH = 256;
+    private static final int VACUUM_MAX_BATCHES = 64;
+    private static final long VACUUM_PAUSE_MS = 50;
+    private static final int ANALYSIS_LIMIT = 1000;
+
+    private static final AtomicLong REQUESTS = new AtomicLong();
+    private static final List<Task> TASKS = List.of(
+            new Task("checkpoint-passive", Duration.ofMinutes(5), c -> checkpoint(c, "PASSIVE")),
+            new Task("checkpoint-truncate", Duration.ofHours(1), c -> checkpoint(c, "TRUNCATE")),
+            new Task("optimize", Duration.ofHours(1), Maintenance::optimize),
+            new Task("analyze", Duration.ofHours(24), Maintenance::analyze),
+            new Task("incremental-vacuum", Duration.ofHours(6), Maintenance::incrementalVacuum),
+            new Task("quick-check", Duration.ofHours(24), Maintenance::quickCheck)
+    );
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "db-maintenance");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+
+    // Only touched by the maintenance thread
+    private static boolean lastRunsLoaded;
+
+    public static void start() {
+        SCHEDULER.scheduleWithFixedDelay(Maintenance::tick, TICK.toSeconds(), TICK.toSeconds(), TimeUnit.SECONDS);
+    }
+
+    // Called for every API request; used to detect low-traffic moments
+    public static void noteRequest() {
+        REQUESTS.incrementAndGet();
+    }
+
+    public static List<Map<String, Object>> status() {
+        List<Map<String, Object>> out = new ArrayList<>();
+        for (Task t : TASKS) out.add(t.status());
+        return out;
+    }
+
+    private static void tick() {
+        if (!lastRunsLoaded) {
+            loadLastRuns();
+            lastRunsLoaded = true;
+        }
+        boolean quiet = REQUESTS.getAndSet(0) < QUIET_REQUESTS_PER_TICK;
+        Instant now = Instant.now();
+        for (Task t : TASKS) {
+            if (t.due(now, quiet)) {
+                t.run();
+                return; // one task per tick keeps maintenance spread out
+            }
+        }
+    }
+
+    private static void loadLastRuns() {
+        try (Connection c = Db.get();
+             Statement st = c.createStatement();
+             ResultSet rs = st.executeQuery("SELECT task, last_run FROM maintenance_runs")) {
+            Map<String, Instant> lastRuns = new LinkedHashMap<>();
+            while (rs.next()) {
+                lastRuns.put(rs.getString("task"), Instant.ofEpochSecond(rs.getLong("last_run")));
+            }
+            for (Task t : TASKS) t.restore(lastRuns.get(t.name));
+        } catch (SQLException e) {
+            System.out.println("DB maintenance: could not load last runs: " + e.getMessage());
+        }
+    }
+
+    private static void saveLastRun(String task, Instant lastRun) {
+        try (Connection c = Db.get();
+             PreparedStatement ps = c.prepareStatement(
+                     "INSERT INTO maintenance_runs(task, last_run) VALUES(?, ?) ON CONFLICT(task) DO UPDATE SET last_run = excluded.last_run")) {
+            ps.setString(1, task);
+            ps.setLong(2, lastRun.getEpochSecond());
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            System.out.println("DB maintenance: could not save last run of " + task + ": " + e.getMessage());
+        }
+    }
+
+    //  Tasks
+
+    @FunctionalInterface
+    interface Body {
+        Map<String, Object> run(Connection c) throws SQLException;
+    }
+
+    static class Task {
+        private final String name;
+        private final Duration interval;
+        private final Body body;
+
+        private Instant lastRun; // null until it runs (here or, per maintenance_runs, on an earlier start)
+        private long runs;
+        private long lastDurationMs;
+        private Map<String, Object> lastResult;
+        private String lastError;
+
+        Task(String name, Duration interval, Body body) {
+            this.name = name;
+            this.interval = interval;
+            this.body = body;
+        }
+
+        synchronized void restore(Instant persisted) {
+            if (persisted != null && (lastRun == null || persisted.isAfter(lastRun))) lastRun = persisted;
+        }
+
+        synchronized boolean due(Instant now, boolean quiet) {
+            // Never ran: count as if the last run was one interval before STARTED + FIRST_RUN_DELAY
+            Instant from = lastRun != null ? lastRun : STARTED.plus(FIRST_RUN_DELAY).minus(interval);
+            Duration since = Duration.between(from, now);
+            if (since.compareTo(interval) < 0) return false;
+            return quiet || since.compareTo(interval.multipliedBy(OVERDUE_FACTOR)) >= 0;
+        }
+
+        void run() {
+            long start = System.nanoTime();
+            Map<String, Object> result = null;
+            String error = null;
+            try (Connection c = Db.get()) {
+                result = body.run(c);
+            } catch (Exception e) {
+                error = e.getMessage();
+                System.out.println("DB maintenance task " + name + " failed: " + e.getMessage());
+            }
+            long durationMs = (System.nanoTime() - start) / 1_000_000;
+            Instant finished = Instant.now();
+            synchronized (this) {
+                lastRun = finished;
+                runs++;
+                lastDurationMs = durationMs;
+                lastResult = result;
+                lastError = error;
+            }
+            saveLastRun(name, finished);
+            System.out.println("DB maintenance: " + name + " took " + durationMs + " ms " + (error == null ? result : "(failed)"));
+        }
+
+        synchronized Map<String, Object> status() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("task", name);
+            m.put("intervalSeconds", interval.toSeconds());
+            m.put("runs", runs);
+            m.put("lastRun", lastRun == null ? null : lastRun.toString());
+            m.put("lastDurationMs", lastDurationMs);
+            m.put("lastResult", lastResult);
+            m.put("lastError", lastError);
+            return m;
+        }
+    }
+
+    // PASSIVE never waits on readers or writers; TRUNCATE also resets the -wal file to zero bytes
+    private static Map<String, Object> checkpoint(Connection c, String mode) throws SQLException {
+        try (Statement st = c.createStatement();
+             ResultSet rs = st.executeQuery("PRAGMA wal_checkpoint(" + mode + ")")) {
+            Map<String, Object> m = new LinkedHashMap<>();
+            if (rs.next()) {
+                m.put("busy", rs.getInt(1) != 0);
+                m.put("walFrames", rs.getInt(2));
+                m.put("checkpointedFrames", rs.getInt(3));
+            }
+            return m;
+        }
+    }
+
+    // Cheap: only re-analyzes tables whose stats SQLite considers stale
+    private static Map<String, Object> optimize(Connection c) throws SQLException {
+        try (Statement st = c.createStatement()) {
+            st.execute("PRAGMA analysis_limit = " + ANALYSIS_LIMIT);
+            st.execute("PRAGMA optimize");
+        }
+        return Map.of("analysisLimit", ANALYSIS_LIMIT);
+    }
+
+    // analysis_limit makes ANALYZE sample each index instead of scanning it, bounding lock time
+    private static Map<String, Object> analyze(Connection c) throws SQLException {
+        try (Statement st = c.createStatement()) {
+            st.execute("PRAGMA analysis_limit = " + ANALYSIS_LIMIT);
+            st.execute("ANALYZE");
+        }
+        return Map.of("analysisLimit", ANALYSIS_LIMIT);
+    }
+
+    // Frees pages in small batches with pauses in between so writers can get in.
+    // Each sqlite3_step of "PRAGMA incremental_vacuum(N)" frees only one page and the JDBC
+    // execute() steps once, so pages are freed one statement at a time, VACUUM_PAGES_PER_BATCH
+    // per transaction (one commit per batch rather than per page).
+    private static Map<String, Object> incrementalVacuum(Connection c) throws SQLException {
+        try (Statement st = c.createStatement()) {
+            if (pragmaLong(st, "auto_vacuum") != 2) {
+                return Map.of("skipped", "auto_vacuum is not INCREMENTAL");
+            }
+            long pageSize = pragmaLong(st, "page_size");
+            long freeBefore = pragmaLong(st, "freelist_count");
+            long sizeBefore = pragmaLong(st, "page_count") * pageSize;
+
+            int batches = 0;
+            while (batches < VACUUM_MAX_BATCHES) {
+                long free = pragmaLong(st, "freelist_count");
+                if (free == 0) break;
+                c.setAutoCommit(false);
+                try {
+                    for (long i = Math.min(free, VACUUM_PAGES_PER_BATCH); i > 0; i--) {
+                        // Closing the statement finishes it; an unfinished write statement blocks COMMIT
+                        try (Statement page = c.createStatement()) {
+                            page.execute("PRAGMA incremental_vacuum(1)");
+                        }
+                    }
+                    c.commit();
+                } catch (SQLException e) {
+                    c.rollback();
+                    throw e;
+                } finally {
+                    c.setAutoCommit(true);
+                }
+                batches++;
+                try {
+                    Thread.sleep(VACUUM_PAUSE_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("batches", batches);
+            m.put("freePagesBefore", freeBefore);
+            m.put("freePagesAfter", pragmaLong(st, "freelist_count"));
+            m.put("bytesBefore", sizeBefore);
+            m.put("bytesAfter", pragmaLong(st, "page_count") * pageSize);
+            return m;
+        }
+    }
+
+    // Read-only; in WAL mode it doesn't block writers
+    private static Map<String, Object> quickCheck(Connection c) throws SQLException {
+        List<String> problems = new ArrayList<>();
+        try (Statement st = c.createStatement();
+             ResultSet rs = st.executeQuery("PRAGMA quick_check(10)")) {
+            while (rs.next()) {
+                String line = rs.getString(1);
+                if (!"ok".equals(line)) problems.add(line);
+            }
+        }
+        if (!problems.isEmpty()) {
+            System.out.println("DB quick_check reported problems: " + problems);
+        }
+        return Map.of("ok", problems.isEmpty(), "problems", problems);
+    }
+
+    private static long pragmaLong(Statement st, String pragma) throws SQLException {
+        try (ResultSet rs = st.executeQuery("PRAGMA " + pragma)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package app;
+
+import java.sql.*;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+// Interned strings (workout types, exercise names) stored once in a dictionary table
+// and referenced by integer id from the log tables.
+// Keys are normalized (trimmed, whitespace collapsed, lower-cased) so "Cardio", " cardio "
+// and "CARDIO" share one row; the first spelling seen is kept as the display name.
+// A blank string is an entry of its own (name and key ""), so it reads back as "" and
+// stays distinct from NULL, exactly like the text columns this replaced.
+// The id<->name mapping is cached process-wide, so DAOs resolve names without joins.
+public class NameDictionary {
+    public static final NameDictionary WORKOUT_TYPES = new NameDictionary("workout_types");
+    public static final NameDictionary EXERCISES = new NameDictionary("exercises");
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final String table;
+    private final ConcurrentHashMap<String, Integer> idsByKey = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, String> namesById = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    private NameDictionary(String table) {
+        this.table = table;
+    }
+
+    // Id for a raw string, inserting it on first use; null for null input
+    public Integer idFor(String raw) throws SQLException {
+        String key = key(raw);
+        if (key == null) return null;
+        ensureLoaded();
+        Integer id = idsByKey.get(key);
+        if (id != null) return id;
+
+        try (Connection c = Db.get()) {
+            id = intern(c, raw);
+            try (PreparedStatement ps = c.prepareStatement("SELECT name FROM " + table + " WHERE id=?")) {
+                ps.setInt(1, id);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) namesById.put(id, rs.getString("name"));
+                }
+            }
+        }
+        idsByKey.put(key, id);
+        return id;
+    }
+
+    // Display name for an id; 0 (what getInt returns for NULL) maps to null
+    public String name(int id) throws SQLException {
+        if (id <= 0) return null;
+        ensureLoaded();
+        String name = namesById.get(id);
+        if (name == null) {
+            // Inserted by another process since we loaded
+            reload();
+            name = namesById.get(id);
+        }
+        return name;
+    }
+
+    // Insert-if-missing on the caller's connection, without touching the cache
+    // (used by the schema migration inside its transaction)
+    int intern(Connection c, String raw) throws SQLException {
+        String key = key(raw);
+        try (PreparedStatement ins = c.prepareStatement("INSERT OR IGNORE INTO " + table + "(name, norm) VALUES(?, ?)")) {
+            ins.setString(1, WHITESPACE.matcher(raw.trim()).replaceAll(" "));
+            ins.setString(2, key);
+            ins.executeUpdate();
+        }
+        try (PreparedStatement ps = c.prepareStatement("SELECT id FROM " + table + " WHERE norm=?")) {
+            ps.setString(1, key);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getInt("id");
+            }
+        }
+    }
+
+    static String key(String raw) {
+        if (raw == null) return null;
+        return WHITESPACE.matcher(raw.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    private void ensureLoaded() throws SQLException {
+        if (!loaded) reload();
+    }
+
+    private synchronized void reload() throws SQLException {
+        try (Connection c = Db.get();
+             PreparedStatement ps = c.prepareStatement("SELECT id, name, norm FROM " + table);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                idsByKey.put(rs.getString("norm"), rs.getInt("id"));
+                namesById.put(rs.getInt("id"), rs.getString("name"));
+            }
+        }
+        loaded = true;
+    }
+}
@@ -0,0 +1,82 @@
+package app;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+
+// Startup phase timing log and background warm-up
+public class Startup {
+    private static final long T0 = System.nanoTime();
+    private static long last = T0;
+
+    private static final int WARMUP_ROUNDS = 5;
+
+    // Time from process launch until main() runs (JVM boot + loading Main)
+    public static void logJvmBoot() {
+        ProcessHandle.current().info().startInstant().ifPresent(start ->
+                System.out.println("Startup: jvm boot " + Duration.between(start, Instant.now()).toMillis() + " ms"));
+    }
+
+    // Log how long the phase that just finished took, and the running total since main()
+    public static synchronized void mark(String phase) {
+        long now = System.nanoTime();
+        System.out.println("Startup: " + phase + " " + (now - last) / 1_000_000 + " ms (total " + (now - T0) / 1_000_000 + " ms)");
+        last = now;
+    }
+
+    // Runs after the server is listening: verifies the DB schema, rebuilds the leaderboards
+    // (writes meanwhile are queued, see Leaderboard) and sends a few requests through Jetty,
+    // the before-filter and Jackson (both directions) so the first real user doesn't pay
+    // for class loading. Each step has its own try, so a failed self-request can't leave
+    // the leaderboard unbuilt. With exitWhenDone the JVM exits afterwards, which is what
+    // the appCdsArchive training run relies on.
+    public static void warmUp(int port, boolean exitWhenDone) {
+        Thread t = new Thread(() -> {
+            long start = System.nanoTime();
+            try {
+                Db.init();
+                System.out.println("Startup (background): schema check " + (System.nanoTime() - start) / 1_000_000 + " ms");
+            } catch (Exception | LinkageError e) { // ExceptionInInitializerError from Db's static init
+                System.out.println("Startup schema check failed: " + e);
+            }
+
+            long phase = System.nanoTime();
+            try {
+                Leaderboard.start();
+                System.out.println("Startup (background): leaderboard " + (System.nanoTime() - phase) / 1_000_000 + " ms");
+            } catch (Exception | LinkageError e) {
+                System.out.println("Startup leaderboard failed: " + e);
+            }
+
+            phase = System.nanoTime();
+            try {
+                HttpClient client = HttpClient.newHttpClient();
+                String base = "http://localhost:" + port;
+                for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                    client.send(HttpRequest.newBuilder(URI.create(base + "/api/health")).GET().build(),
+                            HttpResponse.BodyHandlers.discarding());
+                    // Empty credentials are rejected with a 400 before any DB access
+                    client.send(HttpRequest.newBuilder(URI.create(base + "/api/login"))
+                                    .header("Content-Type", "application/json")
+                                    .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"\",\"password\":\"\"}"))
+                                    .build(),
+                            HttpResponse.BodyHandlers.discarding());
+                    client.send(HttpRequest.newBuilder(URI.create(base + "/script.js")).GET().build(),
+                            HttpResponse.BodyHandlers.discarding());
+                }
+                System.out.println("Startup: warm-up done in " + (System.nanoTime() - phase) / 1_000_000 + " ms");
+            } catch (Exception e) {
+                System.out.println("Startup warm-up failed: " + e.getMessage());
+            }
+            if (exitWhenDone) {
+                System.exit(0);
+            }
+        }, "startup-warmup");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        t.start();
+    }
+}
@@ -0,0 +1,206 @@
+package app;
+
+import io.javalin.http.Context;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Stateless auth tokens: HMAC-SHA256 signed, carrying user id, username and expiry,
+// so any node holding the keys can verify a request without a session or DB lookup.
+//
+// Token layout:  kid.userId.expiresAt.jti.base64url(username).base64url(signature)
+//
+// Configuration (environment):
+//   FITGIRL_AUTH_MODE        "session" (default) or "token" - what /api/login issues
+//   FITGIRL_TOKEN_KEYS       "kid:base64secret,kid2:base64secret"; the first key signs,
+//                            all keys verify, so keys can be rotated without logouts
+//   FITGIRL_TOKEN_TTL_HOURS  token lifetime (default 12)
+//
+// init() reads and validates these once, from main() before the server starts: a bad value
+// stops startup, and token mode refuses to start without FITGIRL_TOKEN_KEYS (a per-process
+// key would make tokens fail on every other node and after each restart).
+public class TokenAuth {
+    public static final String COOKIE = "fitgirl_token";
+
+    private static final Base64.Encoder B64 = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder B64D = Base64.getUrlDecoder();
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // keys: kid -> key; insertion order keeps the signing key first
+    record Config(boolean enabled, Duration ttl, Map<String, SecretKeySpec> keys, String signingKid) {}
+
+    private static volatile Config config;
+
+    // Logged-out token ids (jti -> expiry); entries are dropped once the token would have expired anyway
+    private static final ConcurrentHashMap<String, Long> REVOKED = new ConcurrentHashMap<>();
+
+    public record Claims(String kid, long userId, String username, long expiresAt, String jti) {}
+
+    // Throws IllegalArgumentException/IllegalStateException on invalid configuration
+    public static void init() {
+        configure(System.getenv());
+        Config c = config;
+        System.out.println("Auth mode: " + (c.enabled()
+                ? "token (keys " + c.keys().keySet() + ", signing with " + c.signingKid() + ", ttl " + c.ttl().toHours() + "h)"
+                : "session"));
+    }
+
+    static void configure(Map<String, String> env) {
+        config = parse(env);
+    }
+
+    public static boolean enabled() {
+        return config().enabled();
+    }
+
+    public static long ttlSeconds() {
+        return config().ttl().toSeconds();
+    }
+
+    public static String issue(long userId, String username) {
+        return issue(userId, username, Instant.now().plus(config().ttl()).getEpochSecond());
+    }
+
+    static String issue(long userId, String username, long expiresAt) {
+        Config c = config();
+        byte[] jti = new byte[12];
+        RANDOM.nextBytes(jti);
+        String payload = c.signingKid() + "." + userId + "." + expiresAt + "." + B64.encodeToString(jti) + "."
+                + B64.encodeToString(username.getBytes(StandardCharsets.UTF_8));
+        return payload + "." + B64.encodeToString(sign(c.keys().get(c.signingKid()), payload));
+    }
+
+    // Returns null for malformed, forged, expired or revoked tokens
+    public static Claims verify(String token) {
+        int sigDot = token.lastIndexOf('.');
+        if (sigDot < 0) return null;
+        String payload = token.substring(0, sigDot);
+        String[] parts = payload.split("\\.");
+        if (parts.length != 5) return null;
+
+        SecretKeySpec key = config().keys().get(parts[0]);
+        if (key == null) return null;
+        try {
+            byte[] expected = sign(key, payload);
+            byte[] actual = B64D.decode(token.substring(sigDot + 1));
+            if (!MessageDigest.isEqual(expected, actual)) return null;
+
+            Claims claims = new Claims(parts[0], Long.parseLong(parts[1]),
+                    new String(B64D.decode(parts[4]), StandardCharsets.UTF_8), Long.parseLong(parts[2]), parts[3]);
+            if (claims.expiresAt() <= Instant.now().getEpochSecond()) return null;
+            if (REVOKED.containsKey(claims.jti())) return null;
+            return claims;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public static void revoke(Claims claims) {
+        long now = Instant.now().getEpochSecond();
+        REVOKED.values().removeIf(exp -> exp <= now);
+        REVOKED.put(claims.jti(), claims.expiresAt());
+    }
+
+    // Token from an explicit Authorization: Bearer header (null if absent)
+    public static String bearer(Context ctx) {
+        String auth = ctx.header("Authorization");
+        if (auth != null && auth.startsWith("Bearer ")) {
+            return auth.substring("Bearer ".length()).trim();
+        }
+        return null;
+    }
+
+    // Token from the HttpOnly cookie the browser sends (null if absent)
+    public static String cookie(Context ctx) {
+        String token = ctx.cookie(COOKIE);
+        return token == null || token.isEmpty() ? null : token;
+    }
+
+    public static void setCookie(Context ctx, String token) {
+        ctx.header("Set-Cookie", COOKIE + "=" + token + "; Path=/; Max-Age=" + ttlSeconds() + "; HttpOnly; SameSite=Lax");
+    }
+
+    public static void clearCookie(Context ctx) {
+        ctx.header("Set-Cookie", COOKIE + "=; Path=/; Max-Age=0; HttpOnly; SameSite=Lax");
+    }
+
+    private static byte[] sign(SecretKeySpec key, String payload) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key);
+            return mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC unavailable", e);
+        }
+    }
+
+    private static Config config() {
+        Config c = config;
+        if (c == null) throw new IllegalStateException("TokenAuth.init() has not been called");
+        return c;
+    }
+
+    static Config parse(Map<String, String> env) {
+        String mode = envOr(env, "FITGIRL_AUTH_MODE", "session");
+        if (!mode.equalsIgnoreCase("session") && !mode.equalsIgnoreCase("token")) {
+            throw new IllegalArgumentException("FITGIRL_AUTH_MODE must be 'session' or 'token', got '" + mode + "'");
+        }
+        boolean enabled = mode.equalsIgnoreCase("token");
+
+        long ttlHours;
+        try {
+            ttlHours = Long.parseLong(envOr(env, "FITGIRL_TOKEN_TTL_HOURS", "12").trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("FITGIRL_TOKEN_TTL_HOURS must be a whole number of hours");
+        }
+        if (ttlHours <= 0) {
+            throw new IllegalArgumentException("FITGIRL_TOKEN_TTL_HOURS must be positive");
+        }
+
+        Map<String, SecretKeySpec> keys = new LinkedHashMap<>();
+        String spec = env.get("FITGIRL_TOKEN_KEYS");
+        if (spec != null && !spec.isBlank()) {
+            for (String entry : spec.split(",")) {
+                String[] kv = entry.trim().split(":", 2);
+                if (kv.length != 2 || kv[0].isBlank() || kv[0].contains(".")) {
+                    throw new IllegalArgumentException("FITGIRL_TOKEN_KEYS entries must be kid:base64secret");
+                }
+                byte[] secret;
+                try {
+                    secret = Base64.getDecoder().decode(kv[1].trim());
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Token key '" + kv[0].trim() + "' is not valid base64");
+                }
+                if (secret.length < 32) {
+                    throw new IllegalArgumentException("Token key '" + kv[0].trim() + "' must be at least 32 bytes");
+                }
+                if (keys.put(kv[0].trim(), new SecretKeySpec(secret, "HmacSHA256")) != null) {
+                    throw new IllegalArgumentException("Token key id '" + kv[0].trim() + "' appears twice");
+                }
+            }
+        } else if (enabled) {
+            throw new IllegalStateException("FITGIRL_AUTH_MODE=token requires FITGIRL_TOKEN_KEYS");
+        } else {
+            // Session mode never issues tokens; a throwaway key just makes stray cookies fail to verify
+            byte[] secret = new byte[32];
+            RANDOM.nextBytes(secret);
+            keys.put("dev", new SecretKeySpec(secret, "HmacSHA256"));
+        }
+        return new Config(enabled, Duration.ofHours(ttlHours), keys, keys.keySet().iterator().next());
+    }
+
+    private static String envOr(Map<String, String> env, String name, String def) {
+        String v = env.get(name);
+        return (v == null || v.isBlank()) ? def : v;
+    }
+}
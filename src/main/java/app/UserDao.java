@@ -3,6 +3,10 @@ package app;
 import org.mindrot.jbcrypt.BCrypt;
 
 import java.sql.*;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 public class UserDao {
 
@@ -70,4 +74,21 @@ public class UserDao {
             }
         }
     }
-}
+
+    // Resolve usernames for a batch of ids in one query
+    public static Map<Long, String> getUsernamesByIds(Collection<Long> ids) throws SQLException {
+        Map<Long, String> names = new HashMap<>();
+        if (ids == null || ids.isEmpty()) return names;
+
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        try (Connection c = Db.get();
+             PreparedStatement ps = c.prepareStatement("SELECT id, username FROM users WHERE id IN (" + placeholders + ")")) {
+            int i = 1;
+            for (Long id : ids) ps.setLong(i++, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) names.put(rs.getLong("id"), rs.getString("username"));
+            }
+        }
+        return names;
+    }
+}
\ No newline at end of file
@@ -10,15 +10,16 @@ public class WorkoutDao {
     // Insert a new workout log
     public static Long addWorkoutLog(long userId, Map<String, Object> logData) throws SQLException {
         String sql = """
-            INSERT INTO workout_logs(user_id, date, workout_type, exercise, sets, reps, notes)
-            VALUES (?, ?, ?, ?, ?, ?, ?)
+            INSERT INTO workout_logs(user_id, date, workout_type_id, exercise_id, sets, reps, notes, change_seq)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
         """;
 
+        Long workoutLogId;
         try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             ps.setLong(1, userId);
             ps.setString(2, (String) logData.get("date"));
-            ps.setString(3, (String) logData.get("workout_type"));
-            ps.setString(4, (String) logData.get("exercise"));
+            ps.setObject(3, NameDictionary.WORKOUT_TYPES.idFor((String) logData.get("workout_type")));
+            ps.setObject(4, NameDictionary.EXERCISES.idFor((String) logData.get("exercise")));
 
             // Handle potential null or invalid numbers
             Object setsObj = logData.get("sets");
@@ -44,12 +45,50 @@ public class WorkoutDao {
             ps.setInt(6, reps);
             ps.setString(7, (String) logData.get("notes"));
 
-            ps.executeUpdate();
+            // Row and change sequence commit together (delta sync)
+            c.setAutoCommit(false);
+            try {
+                ps.setLong(8, ChangeDao.nextSeq(c, userId));
+                ps.executeUpdate();
 
-            try (ResultSet rs = ps.getGeneratedKeys()) {
-                return rs.next() ? rs.getLong(1) : null;
+                try (ResultSet rs = ps.getGeneratedKeys()) {
+                    workoutLogId = rs.next() ? rs.getLong(1) : null;
+                }
+                c.commit();
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
             }
         }
+        Leaderboard.recordWorkout(userId, workoutLogId == null ? 0 : workoutLogId, (String) logData.get("date"));
+        return workoutLogId;
+    }
+
+    // Workout logs inserted or updated after the given change sequence (delta sync)
+    public static List<Map<String, Object>> getWorkoutLogsChangedSince(long userId, long since) throws SQLException {
+        List<Map<String, Object>> logs = new ArrayList<>();
+        String sql = "SELECT * FROM workout_logs WHERE user_id = ? AND change_seq > ? ORDER BY change_seq ASC";
+
+        try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setLong(1, userId);
+            ps.setLong(2, since);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Map<String, Object> log = new java.util.HashMap<>();
+                    log.put("id", rs.getLong("id"));
+                    log.put("date", rs.getString("date"));
+                    log.put("workout_type", NameDictionary.WORKOUT_TYPES.name(rs.getInt("workout_type_id")));
+                    log.put("exercise", NameDictionary.EXERCISES.name(rs.getInt("exercise_id")));
+                    log.put("sets", rs.getInt("sets"));
+                    log.put("reps", rs.getInt("reps"));
+                    log.put("notes", rs.getString("notes"));
+                    log.put("change_seq", rs.getLong("change_seq"));
+                    logs.add(log);
+                }
+            }
+        }
+        return logs;
     }
 
     // Get all workout logs for a user
@@ -65,8 +104,8 @@ public class WorkoutDao {
                     Map<String, Object> log = new java.util.HashMap<>();
                     log.put("id", rs.getLong("id"));
                     log.put("date", rs.getString("date"));
-                    log.put("workout_type", rs.getString("workout_type"));
-                    log.put("exercise", rs.getString("exercise"));
+                    log.put("workout_type", NameDictionary.WORKOUT_TYPES.name(rs.getInt("workout_type_id")));
+                    log.put("exercise", NameDictionary.EXERCISES.name(rs.getInt("exercise_id")));
                     log.put("sets", rs.getInt("sets"));
                     log.put("reps", rs.getInt("reps"));
                     log.put("notes", rs.getString("notes"));
@@ -91,8 +130,8 @@ public class WorkoutDao {
                     Map<String, Object> log = new java.util.HashMap<>();
                     log.put("id", rs.getLong("id"));
                     log.put("date", rs.getString("date"));
-                    log.put("workout_type", rs.getString("workout_type"));
-                    log.put("exercise", rs.getString("exercise"));
+                    log.put("workout_type", NameDictionary.WORKOUT_TYPES.name(rs.getInt("workout_type_id")));
+                    log.put("exercise", NameDictionary.EXERCISES.name(rs.getInt("exercise_id")));
                     log.put("sets", rs.getInt("sets"));
                     log.put("reps", rs.getInt("reps"));
                     log.put("notes", rs.getString("notes"));
@@ -106,14 +145,14 @@ public class WorkoutDao {
     // Count workouts by type
     public static Map<String, Integer> getWorkoutTypeCounts(long userId) throws SQLException {
         Map<String, Integer> counts = new java.util.HashMap<>();
-        String sql = "SELECT workout_type, COUNT(*) as count FROM workout_logs WHERE user_id = ? AND workout_type IS NOT NULL GROUP BY workout_type";
+        String sql = "SELECT workout_type_id, COUNT(*) as count FROM workout_logs WHERE user_id = ? AND workout_type_id IS NOT NULL GROUP BY workout_type_id";
 
         try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setLong(1, userId);
 
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
-                    String workoutType = rs.getString("workout_type");
+                    String workoutType = NameDictionary.WORKOUT_TYPES.name(rs.getInt("workout_type_id"));
                     int count = rs.getInt("count");
                     counts.put(workoutType, count);
                 }
@@ -121,4 +160,35 @@ public class WorkoutDao {
         }
         return counts;
     }
-}
\ No newline at end of file
+
+    // Highest committed workout log id
+    public static long maxWorkoutLogId() throws SQLException {
+        try (Connection c = Db.get();
+             Statement st = c.createStatement();
+             ResultSet rs = st.executeQuery("SELECT COALESCE(MAX(id),0) FROM workout_logs")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    // Workout counts per user and date since a given date, up to a workout log id (used to seed the leaderboard)
+    public static List<Map<String, Object>> workoutCountsSince(String since, long maxId) throws SQLException {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        String sql = "SELECT user_id, date, COUNT(*) as count FROM workout_logs WHERE date >= ? AND id <= ? GROUP BY user_id, date";
+
+        try (Connection c = Db.get(); PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setString(1, since);
+            ps.setLong(2, maxId);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Map<String, Object> row = new java.util.HashMap<>();
+                    row.put("user_id", rs.getLong("user_id"));
+                    row.put("date", rs.getString("date"));
+                    row.put("count", rs.getInt("count"));
+                    rows.add(row);
+                }
+            }
+        }
+        return rows;
+    }
+}
\ No newline at end of file
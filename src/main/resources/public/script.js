@@ -142,6 +142,9 @@ function clearAppData() {
     document.getElementById('activity-logs').innerHTML = '';
     document.getElementById('workout-logs').innerHTML = '';
     document.getElementById('current-user').textContent = '';
+
+    // Drop the offline copy so the next account on this browser never sees it
+    clearSyncDb();
 }
 
 // Chart creation utilities
@@ -519,13 +522,122 @@ document.getElementById('goals-form').addEventListener('submit', async (e) => {
     }
 });
 
+// Offline copy + delta sync
+// Logs, workout logs and goals are kept in IndexedDB. /changes?since=<seq> returns only rows
+// written after the last sync, so steady-state traffic follows new activity, not history size.
+const SYNC_DB_NAME = 'logmyfit-sync';
+const SYNC_STORES = ['logs', 'workoutLogs', 'goals'];
+let syncDbPromise = null;
+
+function openSyncDb() {
+    if (!window.indexedDB) return Promise.reject(new Error('IndexedDB not available'));
+    if (!syncDbPromise) {
+        syncDbPromise = new Promise((resolve, reject) => {
+            const req = indexedDB.open(SYNC_DB_NAME, 1);
+            req.onupgradeneeded = () => {
+                const db = req.result;
+                SYNC_STORES.forEach(name => db.createObjectStore(name, { keyPath: 'id' }));
+                db.createObjectStore('meta', { keyPath: 'key' });
+            };
+            req.onsuccess = () => resolve(req.result);
+            req.onerror = () => reject(req.error);
+        });
+        syncDbPromise.catch(() => { syncDbPromise = null; });
+    }
+    return syncDbPromise;
+}
+
+function idbRequest(req) {
+    return new Promise((resolve, reject) => {
+        req.onsuccess = () => resolve(req.result);
+        req.onerror = () => reject(req.error);
+    });
+}
+
+function idbTransactionDone(tx) {
+    return new Promise((resolve, reject) => {
+        tx.oncomplete = () => resolve();
+        tx.onerror = () => reject(tx.error);
+        tx.onabort = () => reject(tx.error);
+    });
+}
+
+function clearSyncDb() {
+    if (!window.indexedDB) return;
+    openSyncDb()
+        .then(db => {
+            const tx = db.transaction([...SYNC_STORES, 'meta'], 'readwrite');
+            [...SYNC_STORES, 'meta'].forEach(name => tx.objectStore(name).clear());
+            return idbTransactionDone(tx);
+        })
+        .catch(error => console.warn('Could not clear local copy:', error));
+}
+
+// Pull changes since the last sync and apply them to the local copy
+async function syncChanges(db) {
+    const meta = db.transaction('meta', 'readonly').objectStore('meta');
+    const state = (await idbRequest(meta.get('sync'))) || { key: 'sync', user: null, seq: 0 };
+
+    let changes = await apiCall(`/changes?since=${state.seq}`);
+    let clearLocal = changes.reset;
+
+    // Copy belongs to another account: start over from scratch
+    if (state.user !== null && state.user !== changes.user) {
+        changes = await apiCall('/changes?since=0');
+        clearLocal = true;
+    }
+
+    const tx = db.transaction([...SYNC_STORES, 'meta'], 'readwrite');
+    if (clearLocal) SYNC_STORES.forEach(name => tx.objectStore(name).clear());
+    changes.logs.forEach(row => tx.objectStore('logs').put(row));
+    changes.workoutLogs.forEach(row => tx.objectStore('workoutLogs').put(row));
+    changes.goals.forEach(row => tx.objectStore('goals').put(row));
+    tx.objectStore('meta').put({ key: 'sync', user: changes.user, seq: changes.seq });
+    await idbTransactionDone(tx);
+
+    console.log(`Synced ${changes.logs.length + changes.workoutLogs.length + changes.goals.length} changes (seq ${changes.seq})`);
+}
+
+// Local copy after a delta sync; falls back to the full list endpoint without IndexedDB
+async function getSyncedRows(storeName, fullListEndpoint) {
+    let db;
+    try {
+        db = await openSyncDb();
+    } catch (error) {
+        console.warn('Local copy unavailable, fetching full list:', error);
+        return apiCall(fullListEndpoint);
+    }
+
+    try {
+        await syncChanges(db);
+    } catch (error) {
+        if (error.message === 'Please login to continue') throw error;
+        // Offline fallback only when the copy is known to belong to the logged-in account
+        const state = await idbRequest(db.transaction('meta', 'readonly').objectStore('meta').get('sync'));
+        if (!currentUser || !state || state.user !== currentUser) throw error;
+        console.warn('Sync failed, showing local copy:', error);
+    }
+
+    const rows = await idbRequest(db.transaction(storeName, 'readonly').objectStore(storeName).getAll());
+    // Same order as the list endpoints: newest date first
+    return rows.sort((a, b) => b.date.localeCompare(a.date) || a.id - b.id);
+}
+
+function getLogs() {
+    return getSyncedRows('logs', '/logs');
+}
+
+function getWorkoutLogs() {
+    return getSyncedRows('workoutLogs', '/workout-logs');
+}
+
 //Load activity logs
 async function loadActivityLogs() {
     const logsDiv = document.getElementById('activity-logs');
 
     try {
         logsDiv.innerHTML = '<p>Loading activity logs...</p>';
-        const logs = await apiCall('/logs');
+        const logs = await getLogs();
 
         if (logs.length === 0) {
             logsDiv.innerHTML = '<p>No activity logs found. Start logging your activities!</p>';
@@ -553,7 +665,7 @@ async function loadWorkoutLogs() {
 
     try {
         logsDiv.innerHTML = '<p>Loading workout logs...</p>';
-        const logs = await apiCall('/workout-logs');
+        const logs = await getWorkoutLogs();
 
         if (logs.length === 0) {
             logsDiv.innerHTML = '<p>No workout logs found. Start logging your workouts!</p>';
@@ -579,7 +691,7 @@ async function loadWorkoutLogs() {
 async function loadWeeklyAnalytics() {
     try {
         console.log('Loading weekly analytics...');
-        const logs = await apiCall('/logs');
+        const logs = await getLogs();
 
         if (logs.length === 0) {
             showMessage('No data available for analytics. Start logging activities!', 'error');
@@ -770,7 +882,7 @@ function createWeeklyMacroChart(logs) {
 async function loadWorkoutAnalytics() {
     try {
         console.log('Loading workout analytics...');
-        const logs = await apiCall('/workout-logs');
+        const logs = await getWorkoutLogs();
         createWorkoutFrequencyChart(logs);
     } catch (error) {
         console.error('Failed to load workout analytics:', error);
@@ -0,0 +1,123 @@
+package app;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenAuthTest {
+    private static final String KEY_A = secret('a');
+    private static final String KEY_B = secret('b');
+
+    @BeforeEach
+    void tokenMode() {
+        TokenAuth.configure(Map.of("FITGIRL_AUTH_MODE", "token", "FITGIRL_TOKEN_KEYS", "k1:" + KEY_A));
+    }
+
+    @Test
+    void issuedTokenVerifies() {
+        TokenAuth.Claims claims = TokenAuth.verify(TokenAuth.issue(42, "alice"));
+        assertNotNull(claims);
+        assertEquals(42, claims.userId());
+        assertEquals("alice", claims.username());
+        assertEquals("k1", claims.kid());
+    }
+
+    @Test
+    void forgedSignatureIsRejected() {
+        String token = TokenAuth.issue(42, "alice");
+        int sigDot = token.lastIndexOf('.');
+
+        // Signature from a different key over the same payload
+        TokenAuth.configure(Map.of("FITGIRL_AUTH_MODE", "token", "FITGIRL_TOKEN_KEYS", "k1:" + KEY_B));
+        String otherSig = TokenAuth.issue(42, "alice");
+        TokenAuth.configure(Map.of("FITGIRL_AUTH_MODE", "token", "FITGIRL_TOKEN_KEYS", "k1:" + KEY_A));
+        assertNull(TokenAuth.verify(token.substring(0, sigDot) + otherSig.substring(otherSig.lastIndexOf('.'))));
+
+        // Payload changed to another user, original signature kept
+        String[] parts = token.split("\\.");
+        parts[1] = "43";
+        assertNull(TokenAuth.verify(String.join(".", parts)));
+
+        // Signature truncated or not base64 at all
+        assertNull(TokenAuth.verify(token.substring(0, token.length() - 2)));
+        assertNull(TokenAuth.verify(token.substring(0, sigDot) + ".!!!"));
+    }
+
+    @Test
+    void malformedTokensAreRejected() {
+        assertNull(TokenAuth.verify(""));
+        assertNull(TokenAuth.verify("garbage"));
+        assertNull(TokenAuth.verify("k1.x.y.z.w.sig"));
+        assertNull(TokenAuth.verify("a.b"));
+    }
+
+    @Test
+    void expiredTokenIsRejected() {
+        long now = Instant.now().getEpochSecond();
+        assertNull(TokenAuth.verify(TokenAuth.issue(42, "alice", now - 1)));
+        assertNull(TokenAuth.verify(TokenAuth.issue(42, "alice", now)));
+        assertNotNull(TokenAuth.verify(TokenAuth.issue(42, "alice", now + 60)));
+    }
+
+    @Test
+    void unknownKidIsRejected() {
+        String token = TokenAuth.issue(42, "alice");
+        TokenAuth.configure(Map.of("FITGIRL_AUTH_MODE", "token", "FITGIRL_TOKEN_KEYS", "k2:" + KEY_A));
+        // Same secret, but the token names a key id this node doesn't have
+        assertNull(TokenAuth.verify(token));
+    }
+
+    @Test
+    void rotatedKeyKeepsOldTokensValidUntilDropped() {
+        String oldToken = TokenAuth.issue(42, "alice");
+
+        // New key first (signs), old key still listed (verifies)
+        TokenAuth.configure(Map.of("FITGIRL_AUTH_MODE", "token", "FITGIRL_TOKEN_KEYS", "k2:" + KEY_B + ",k1:" + KEY_A));
+        assertNotNull(TokenAuth.verify(oldToken));
+        String newToken = TokenAuth.issue(42, "alice");
+        assertEquals("k2", TokenAuth.verify(newToken).kid());
+
+        // Old key dropped after one token lifetime
+        TokenAuth.configure(Map.of("FITGIRL_AUTH_MODE", "token", "FITGIRL_TOKEN_KEYS", "k2:" + KEY_B));
+        assertNull(TokenAuth.verify(oldToken));
+        assertNotNull(TokenAuth.verify(newToken));
+    }
+
+    @Test
+    void revokedJtiIsRejected() {
+        String token = TokenAuth.issue(42, "alice");
+        String other = TokenAuth.issue(42, "alice");
+        TokenAuth.revoke(TokenAuth.verify(token));
+        assertNull(TokenAuth.verify(token));
+        // Revocation is per token id, not per user
+        assertNotNull(TokenAuth.verify(other));
+    }
+
+    @Test
+    void invalidConfigurationFailsFast() {
+        assertThrows(IllegalStateException.class, () -> TokenAuth.parse(Map.of("FITGIRL_AUTH_MODE", "token")));
+        assertThrows(IllegalArgumentException.class, () -> TokenAuth.parse(Map.of(
+                "FITGIRL_AUTH_MODE", "token", "FITGIRL_TOKEN_KEYS", "k1:" + Base64.getEncoder().encodeToString(new byte[16]))));
+        assertThrows(IllegalArgumentException.class, () -> TokenAuth.parse(Map.of(
+                "FITGIRL_AUTH_MODE", "token", "FITGIRL_TOKEN_KEYS", "no-colon")));
+        assertThrows(IllegalArgumentException.class, () -> TokenAuth.parse(Map.of(
+                "FITGIRL_AUTH_MODE", "token", "FITGIRL_TOKEN_KEYS", "k1:not*base64")));
+        assertThrows(IllegalArgumentException.class, () -> TokenAuth.parse(Map.of(
+                "FITGIRL_AUTH_MODE", "token", "FITGIRL_TOKEN_KEYS", "k1:" + KEY_A, "FITGIRL_TOKEN_TTL_HOURS", "twelve")));
+        assertThrows(IllegalArgumentException.class, () -> TokenAuth.parse(Map.of("FITGIRL_AUTH_MODE", "tokens")));
+
+        // Session mode needs no keys
+        assertFalse(TokenAuth.parse(Map.of()).enabled());
+    }
+
+    private static String secret(char fill) {
+        byte[] bytes = new byte[32];
+        java.util.Arrays.fill(bytes, (byte) fill);
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+}